@@ -0,0 +1,150 @@
+package com.photour.database;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.RoomDatabase.JournalMode;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.photour.model.Photo;
+import com.photour.model.Visit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures how many photos per second are inserted one per transaction, as
+ * {@link PhotoRepository#insert(Photo)} did before {@link PhotoWriteBuffer}, against the batches
+ * of {@link PhotoRepository#insertAll(List)}. Both paths update the cluster pyramid like the
+ * repository does. The results are logged, only the number of inserted photos is checked.
+ * <p>
+ * An in-memory database never syncs to storage, so the same run is repeated on a database file
+ * to include the cost of committing each transaction.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+@RunWith(AndroidJUnit4.class)
+public class PhotoInsertBenchmark {
+
+  private static final String TAG = PhotoInsertBenchmark.class.getSimpleName();
+  private static final String DATABASE_NAME = "insert_benchmark";
+  private static final int PHOTO_COUNT = 1000;
+
+  private final Context context = ApplicationProvider.getApplicationContext();
+
+  @Test
+  public void inMemory() {
+    final double perRow = run(
+        Room.inMemoryDatabaseBuilder(context, AppDatabase.class), "in-memory", false);
+    final double batched = run(
+        Room.inMemoryDatabaseBuilder(context, AppDatabase.class), "in-memory", true);
+
+    Log.i(TAG, String.format("in-memory: %.1fx faster in batches", batched / perRow));
+  }
+
+  @Test
+  public void onDisk() {
+    final double perRow = run(
+        Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME), "on disk", false);
+    final double batched = run(
+        Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME), "on disk", true);
+
+    Log.i(TAG, String.format("on disk: %.1fx faster in batches", batched / perRow));
+  }
+
+  /**
+   * Insert {@link #PHOTO_COUNT} photos into a new database
+   *
+   * @param builder The builder of the database
+   * @param name Name of the database in the log
+   * @param batched {@code true} to insert the photos in batches of
+   * {@link PhotoWriteBuffer#MAX_BATCH_SIZE}, else one per transaction
+   * @return double Photos inserted per second
+   */
+  private double run(RoomDatabase.Builder<AppDatabase> builder, String name, boolean batched) {
+    context.deleteDatabase(DATABASE_NAME);
+
+    final AppDatabase db = builder
+        .addCallback(new RoomDatabase.Callback() {
+          @Override
+          public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            DatabaseMigrations.createPhotoTriggers(db);
+          }
+        })
+        .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+        .build();
+
+    try {
+      final PhotoDao photoDao = db.imageDao();
+      final PhotoClusterDao photoClusterDao = db.photoClusterDao();
+      final int visitId = (int) db.visitDao()
+          .insert(Visit.create(0, "Benchmark", new Date(), 0, null, 0, null));
+      final List<Photo> photos = createPhotos(visitId);
+
+      final long start = System.nanoTime();
+
+      if (batched) {
+        for (int i = 0; i < photos.size(); i += PhotoWriteBuffer.MAX_BATCH_SIZE) {
+          final List<Photo> batch = photos
+              .subList(i, Math.min(i + PhotoWriteBuffer.MAX_BATCH_SIZE, photos.size()));
+
+          db.runInTransaction(() -> {
+            final long[] ids = photoDao.insertAll(batch);
+            ClusterPyramid.addPhotos(photoClusterDao, ids, batch);
+          });
+        }
+      } else {
+        for (Photo photo : photos) {
+          db.runInTransaction(() -> {
+            final long id = photoDao.insert(photo);
+            ClusterPyramid.addPhotos(photoClusterDao, new long[]{id},
+                Collections.singletonList(photo));
+          });
+        }
+      }
+
+      final double seconds = (System.nanoTime() - start) / 1e9;
+      final double photosPerSecond = photos.size() / seconds;
+
+      Log.i(TAG, String.format("%s, %s: %.0f photos/s", name,
+          batched ? "batches of " + PhotoWriteBuffer.MAX_BATCH_SIZE : "one per transaction",
+          photosPerSecond));
+
+      try (Cursor cursor = db.query("SELECT COUNT(*) FROM photos", null)) {
+        cursor.moveToFirst();
+        assertEquals(PHOTO_COUNT, cursor.getInt(0));
+      }
+
+      return photosPerSecond;
+    } finally {
+      db.close();
+      context.deleteDatabase(DATABASE_NAME);
+    }
+  }
+
+  /**
+   * Photos a few metres apart, as taken during a visit
+   *
+   * @param visitId ID of the visit of the photos
+   * @return List<Photo> The photos, without IDs
+   */
+  private static List<Photo> createPhotos(int visitId) {
+    final List<Photo> photos = new ArrayList<>(PHOTO_COUNT);
+    final long now = System.currentTimeMillis();
+
+    for (int i = 0; i < PHOTO_COUNT; i++) {
+      photos.add(Photo.create(0, visitId, "/storage/emulated/0/DCIM/benchmark_" + i + ".jpg",
+          new Date(now + i * 1000L), 53.3811 + i * 1e-5, -1.4701 + i * 1e-5, null, null));
+    }
+    return photos;
+  }
+}
@@ -4,6 +4,8 @@ import android.content.Context;
 import android.content.Intent;
 import android.graphics.Rect;
 import android.os.Bundle;
+import android.os.StrictMode;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.MotionEvent;
@@ -22,6 +24,9 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceFragmentCompat;
 import com.google.android.libraries.maps.MapView;
 import com.google.android.material.textfield.TextInputEditText;
+import com.photour.database.AppDatabase;
+import com.photour.database.VisitRepository;
+import com.photour.helper.BitmapPool;
 import com.photour.helper.CacheHelper;
 import com.photour.helper.PermissionHelper;
 import com.photour.helper.PreferenceHelper;
@@ -38,6 +43,8 @@ import java.util.List;
 public class MainActivity extends AppCompatActivity
     implements PreferenceFragmentCompat.OnPreferenceStartFragmentCallback {
 
+  private static final String TAG = MainActivity.class.getSimpleName();
+
   private LiveData<NavController> currentNavController;
   private AppBarConfiguration appBarConfiguration;
   private BottomNavExtension navView;
@@ -52,6 +59,10 @@ public class MainActivity extends AppCompatActivity
    */
   @Override
   protected void onCreate(Bundle savedInstanceState) {
+    if (BuildConfig.DEBUG) {
+      enableStrictMode();
+    }
+
     PreferenceHelper.initializePreferences(getApplicationContext());
     setTheme(R.style.AppTheme_NoActionBar);
     super.onCreate(savedInstanceState);
@@ -75,9 +86,25 @@ public class MainActivity extends AppCompatActivity
       restoreOngoingVisit(currentNavController.getValue());
     } else if (!StartVisitService.isRunning) {
       stopService(new Intent(getApplicationContext(), StartVisitService.class));
+
+      // A visit that was ongoing when the app was killed has not ended, it is ended now
+      new VisitRepository(getApplication()).recoverUnfinishedRoutes();
     }
   }
 
+  /**
+   * Log every disk access and slow call on the main thread, so that database and file operations
+   * which block the UI are noticed in debug builds
+   */
+  private void enableStrictMode() {
+    StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+        .detectDiskReads()
+        .detectDiskWrites()
+        .detectCustomSlowCalls()
+        .penaltyLog()
+        .build());
+  }
+
   /**
    * A visit is ongoing when the application was killed. Restore to {@link
    * com.photour.ui.visitnew.StartVisitFragment}
@@ -164,6 +191,28 @@ public class MainActivity extends AppCompatActivity
     setupBottomNavigationBar();
   }
 
+  /**
+   * Called when the operating system has determined that it is a good time for a process to trim
+   * unneeded memory, such as when the app goes to the background. The pooled bitmaps are dropped.
+   * In debug builds, the counters of the bitmap pool and the queue depths and latencies of the
+   * database executors are logged, to show whether the pools are saturated.
+   *
+   * @param level The context of the trim, giving a hint of the amount of trimming the application
+   * may like to perform.
+   */
+  @Override
+  public void onTrimMemory(int level) {
+    super.onTrimMemory(level);
+
+    if (BuildConfig.DEBUG) {
+      Log.d(TAG, BitmapPool.getInstance().toString());
+      Log.d(TAG, AppDatabase.writerPool.toString());
+      Log.d(TAG, AppDatabase.readerPool.toString());
+    }
+
+    BitmapPool.getInstance().clear();
+  }
+
   /**
    * Initialize the contents of the Activity's standard options menu.
    *
@@ -3,53 +3,93 @@ package com.photour.converter;
 import androidx.room.TypeConverter;
 import com.google.android.libraries.maps.model.LatLng;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
- * Type converter for ArrayList<LatLng>
+ * Type converter for ArrayList<LatLng>. A route is stored as a BLOB of coordinates in units of
+ * 1e-7 degrees (E7). Every coordinate is the zigzag varint encoded difference from the previous
+ * point, so consecutive location updates only take a few bytes each.
  *
  * @author Zer Jun Eng, Jia Hua Ng
  */
 public class LatLngListConverter {
 
+  private static final double E7 = 1e7;
+
+  // A zigzag encoded int takes at most 5 bytes as a varint
+  private static final int MAX_VARINT_SIZE = 5;
+
   /**
-   * Convert ArrayList<LatLng> to comma separated string ([latitude, longitude], [...,...],...)
+   * Convert ArrayList<LatLng> to a BLOB of delta encoded E7 coordinates
    *
    * @param latLngList The array of LatLng values
-   * @return String The comma separated string
+   * @return byte[] The encoded coordinates, or null if there is no coordinate
    */
   @TypeConverter
-  public static String fromArrayList(ArrayList<LatLng> latLngList) {
+  public static byte[] fromArrayList(ArrayList<LatLng> latLngList) {
     if (latLngList == null || latLngList.isEmpty()) {
-      return "";
+      return null;
     }
 
-    final StringBuilder string = new StringBuilder();
+    final byte[] bytes = new byte[latLngList.size() * 2 * MAX_VARINT_SIZE];
+    int pos = 0;
+    int lastLat = 0;
+    int lastLng = 0;
 
     for (LatLng latLng : latLngList) {
-      string.append("[").append(latLng.latitude).append(",");
-      string.append(latLng.longitude).append("]").append(";");
-    }
+      final int lat = (int) Math.round(latLng.latitude * E7);
+      final int lng = (int) Math.round(latLng.longitude * E7);
 
-    // Remove the last comma
-    string.setLength(string.length() - 1);
+      pos = writeVarint(bytes, pos, zigzag(lat - lastLat));
+      pos = writeVarint(bytes, pos, zigzag(lng - lastLng));
+      lastLat = lat;
+      lastLng = lng;
+    }
 
-    return string.toString();
+    return Arrays.copyOf(bytes, pos);
   }
 
   /**
-   * Convert comma separated string to ArrayList<LatLng>
+   * Convert a BLOB of delta encoded E7 coordinates to ArrayList<LatLng>
    *
-   * @param string The comma separated string
+   * @param bytes The encoded coordinates
    * @return ArrayList<LatLng> The array of LatLng values
    */
   @TypeConverter
-  public static ArrayList<LatLng> toArrayList(String string) {
-    if (string.isEmpty()) {
+  public static ArrayList<LatLng> toArrayList(byte[] bytes) {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+
+    // Every point takes at least 2 bytes
+    final ArrayList<LatLng> latLngList = new ArrayList<>(bytes.length / 2);
+    final int[] pos = {0};
+    int lat = 0;
+    int lng = 0;
+
+    while (pos[0] < bytes.length) {
+      lat += unzigzag(readVarint(bytes, pos));
+      lng += unzigzag(readVarint(bytes, pos));
+      latLngList.add(new LatLng(lat / E7, lng / E7));
+    }
+
+    return latLngList;
+  }
+
+  /**
+   * Convert the string format used before version 3 of the database ([latitude,longitude];[...])
+   * to ArrayList<LatLng>. Only used to migrate old visits.
+   *
+   * @param string The semicolon separated string
+   * @return ArrayList<LatLng> The array of LatLng values
+   */
+  public static ArrayList<LatLng> fromLegacyString(String string) {
+    if (string == null || string.isEmpty()) {
       return null;
     }
 
     final String[] arr = string.split(";");
-    final ArrayList<LatLng> latLngList = new ArrayList<>();
+    final ArrayList<LatLng> latLngList = new ArrayList<>(arr.length);
 
     for (String s : arr) {
       // Remove square brackets and store latitude and longitude into another array
@@ -61,4 +101,63 @@ public class LatLngListConverter {
 
     return latLngList;
   }
+
+  /**
+   * Map a signed int to an unsigned one, so that small negative deltas stay small
+   *
+   * @param value The signed value
+   * @return int The zigzag encoded value
+   */
+  private static int zigzag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  /**
+   * Reverse {@link #zigzag(int)}
+   *
+   * @param value The zigzag encoded value
+   * @return int The signed value
+   */
+  private static int unzigzag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Write an unsigned int as a varint, 7 bits per byte
+   *
+   * @param bytes The buffer to write into
+   * @param pos The position to start writing at
+   * @param value The value to write
+   * @return int The position after the written bytes
+   */
+  private static int writeVarint(byte[] bytes, int pos, int value) {
+    while ((value & ~0x7F) != 0) {
+      bytes[pos++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+
+    bytes[pos++] = (byte) value;
+    return pos;
+  }
+
+  /**
+   * Read a varint written by {@link #writeVarint(byte[], int, int)}
+   *
+   * @param bytes The buffer to read from
+   * @param pos The position to read at, advanced past the varint
+   * @return int The value read
+   */
+  private static int readVarint(byte[] bytes, int[] pos) {
+    int value = 0;
+    int shift = 0;
+    byte b;
+
+    do {
+      b = bytes[pos[0]++];
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+
+    return value;
+  }
 }
@@ -1,30 +1,47 @@
 package com.photour.database;
 
 import android.content.Context;
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.RoomDatabase.JournalMode;
 import androidx.room.TypeConverters;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.photour.converter.DateConverter;
-import com.photour.converter.FloatArrayConverter;
+import com.photour.model.ImageMetadata;
+import com.photour.model.ImportCheckpoint;
 import com.photour.model.Photo;
+import com.photour.model.PhotoCluster;
+import com.photour.model.RoutePoint;
 import com.photour.model.Visit;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import com.photour.model.VisitRoute;
 
 /**
  * Database class
  *
  * @author Zer Jun Eng, Jia Hua Ng
  */
-@Database(entities = {Photo.class, Visit.class}, version = 1, exportSchema = false)
-@TypeConverters({DateConverter.class, FloatArrayConverter.class})
+@Database(entities = {Photo.class, Visit.class, PhotoCluster.class, ImageMetadata.class,
+    ImportCheckpoint.class, VisitRoute.class, RoutePoint.class}, version = 13,
+    exportSchema = false)
+@TypeConverters({DateConverter.class})
 public abstract class AppDatabase extends RoomDatabase {
 
   private static volatile AppDatabase INSTANCE;
-  private static final int NUMBER_OF_THREADS = 4;
-  public static final ExecutorService databaseExecutor = Executors
-      .newFixedThreadPool(NUMBER_OF_THREADS);
+  private static final int READER_THREADS = 4;
+
+  // WAL lets readers run alongside the writer, so writes are serialized on their own thread and
+  // reads get a pool of their own
+  public static final InstrumentedExecutor writerPool = new InstrumentedExecutor("db-writer", 1);
+  public static final InstrumentedExecutor readerPool = new InstrumentedExecutor("db-reader",
+      READER_THREADS);
+  public static final ListeningExecutorService writeExecutor = MoreExecutors
+      .listeningDecorator(writerPool);
+  public static final ListeningExecutorService readExecutor = MoreExecutors
+      .listeningDecorator(readerPool);
 
 
   /**
@@ -41,6 +58,41 @@ public abstract class AppDatabase extends RoomDatabase {
    */
   public abstract PhotoDao imageDao();
 
+  /**
+   * Get the object instance of {@link PhotoClusterDao}
+   *
+   * @return {@link PhotoClusterDao} An object instance of {@link PhotoClusterDao}
+   */
+  public abstract PhotoClusterDao photoClusterDao();
+
+  /**
+   * Get the object instance of {@link ImageMetadataDao}
+   *
+   * @return {@link ImageMetadataDao} An object instance of {@link ImageMetadataDao}
+   */
+  public abstract ImageMetadataDao imageMetadataDao();
+
+  /**
+   * Get the object instance of {@link ImportCheckpointDao}
+   *
+   * @return {@link ImportCheckpointDao} An object instance of {@link ImportCheckpointDao}
+   */
+  public abstract ImportCheckpointDao importCheckpointDao();
+
+  /**
+   * Get the object instance of {@link VisitRouteDao}
+   *
+   * @return {@link VisitRouteDao} An object instance of {@link VisitRouteDao}
+   */
+  public abstract VisitRouteDao visitRouteDao();
+
+  /**
+   * Get the object instance of {@link RoutePointDao}
+   *
+   * @return {@link RoutePointDao} An object instance of {@link RoutePointDao}
+   */
+  public abstract RoutePointDao routePointDao();
+
   /**
    * Initialise the database if not yet initialised, else return the database object.
    *
@@ -51,6 +103,16 @@ public abstract class AppDatabase extends RoomDatabase {
     if (INSTANCE == null) {
       INSTANCE = Room
           .databaseBuilder(context.getApplicationContext(), AppDatabase.class, "app_database")
+          .addMigrations(DatabaseMigrations.ALL)
+          .addCallback(new Callback() {
+            @Override
+            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+              DatabaseMigrations.createPhotoTriggers(db);
+            }
+          })
+          .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+          .setQueryExecutor(readExecutor)
+          .setTransactionExecutor(writeExecutor)
           .build();
     }
     return INSTANCE;
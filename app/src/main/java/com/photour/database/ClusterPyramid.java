@@ -0,0 +1,130 @@
+package com.photour.database;
+
+import androidx.annotation.WorkerThread;
+import com.google.android.libraries.maps.model.LatLngBounds;
+import com.photour.model.ClusterCell;
+import com.photour.model.Photo;
+import com.photour.model.PhotoCluster;
+import java.util.List;
+
+/**
+ * A pyramid of photo clusters, one grid per zoom level from 0 to {@link #MAX_ZOOM}. The grid is
+ * equirectangular: at zoom level z a cell is 360 / 2^z / {@link #CELLS_PER_TILE} degrees wide and
+ * high, so there are {@link #CELLS_PER_TILE} cells across a map tile. The pyramid is kept up to
+ * date in the same transaction as the photos, so the map only reads the cells that are visible.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class ClusterPyramid {
+
+  public static final int MAX_ZOOM = 12;
+  private static final int CELLS_PER_TILE = 4;
+
+  /**
+   * Get the width and height of a cell in degrees
+   *
+   * @param zoom The zoom level
+   * @return double The size of a cell in degrees
+   */
+  static double cellSize(int zoom) {
+    return 360.0 / (1 << zoom) / CELLS_PER_TILE;
+  }
+
+  /**
+   * Get the column of the cell containing the longitude
+   *
+   * @param lng The longitude
+   * @param zoom The zoom level
+   * @return int The column of the cell
+   */
+  static int cellX(double lng, int zoom) {
+    return (int) ((lng + 180) / cellSize(zoom));
+  }
+
+  /**
+   * Get the row of the cell containing the latitude
+   *
+   * @param lat The latitude
+   * @param zoom The zoom level
+   * @return int The row of the cell
+   */
+  static int cellY(double lat, int zoom) {
+    return (int) ((lat + 90) / cellSize(zoom));
+  }
+
+  /**
+   * Get the cells inside the bounds at a zoom level
+   *
+   * @param dao The {@link PhotoClusterDao}
+   * @param bounds The bounds, which may cross the 180th meridian
+   * @param zoom The zoom level, between 0 and {@link #MAX_ZOOM}
+   * @return List<ClusterCell> The cells inside the bounds
+   */
+  @WorkerThread
+  static List<ClusterCell> getCells(PhotoClusterDao dao, LatLngBounds bounds, int zoom) {
+    return dao.getCells(zoom, cellX(bounds.southwest.longitude, zoom),
+        cellY(bounds.southwest.latitude, zoom), cellX(bounds.northeast.longitude, zoom),
+        cellY(bounds.northeast.latitude, zoom));
+  }
+
+  /**
+   * Add a photo that has just been inserted to every level of the pyramid. Must be called in the
+   * same transaction as the insertion.
+   *
+   * @param dao The {@link PhotoClusterDao}
+   * @param photoId The ID of the inserted photo
+   * @param lat The latitude of the photo
+   * @param lng The longitude of the photo
+   */
+  @WorkerThread
+  static void addPhoto(PhotoClusterDao dao, int photoId, double lat, double lng) {
+    for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+      final int x = cellX(lng, zoom);
+      final int y = cellY(lat, zoom);
+
+      // The first photo of a cell represents it
+      if (dao.addToCell(zoom, x, y, lat, lng) == 0) {
+        dao.insert(PhotoCluster.create(zoom, x, y, 1, lat, lng, photoId));
+      }
+    }
+  }
+
+  /**
+   * Add photos that have just been inserted to every level of the pyramid. Must be called in the
+   * same transaction as the insertion.
+   *
+   * @param dao The {@link PhotoClusterDao}
+   * @param photoIds The IDs of the inserted photos, in the same order as the photos
+   * @param photos The inserted photos
+   */
+  @WorkerThread
+  static void addPhotos(PhotoClusterDao dao, long[] photoIds, List<Photo> photos) {
+    for (int i = 0; i < photoIds.length; i++) {
+      final Photo photo = photos.get(i);
+      addPhoto(dao, (int) photoIds[i], photo.lat(), photo.lng());
+    }
+  }
+
+  /**
+   * Remove a photo that has just been deleted from every level of the pyramid. Must be called in
+   * the same transaction as the deletion.
+   *
+   * @param dao The {@link PhotoClusterDao}
+   * @param photo The deleted photo
+   */
+  @WorkerThread
+  static void removePhoto(PhotoClusterDao dao, Photo photo) {
+    for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+      final int x = cellX(photo.lng(), zoom);
+      final int y = cellY(photo.lat(), zoom);
+      final double size = cellSize(zoom);
+
+      dao.removeFromCell(zoom, x, y, photo.lat(), photo.lng());
+
+      if (dao.deleteIfEmpty(zoom, x, y) == 0) {
+        dao.replaceRepresentative(zoom, x, y, photo.id(), y * size - 90, x * size - 180,
+            (y + 1) * size - 90, (x + 1) * size - 180);
+      }
+    }
+  }
+}
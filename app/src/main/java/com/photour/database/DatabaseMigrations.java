@@ -0,0 +1,281 @@
+package com.photour.database;
+
+import android.database.Cursor;
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import com.photour.converter.LatLngListConverter;
+import com.photour.helper.RouteHelper;
+
+/**
+ * Schema migrations for {@link AppDatabase}
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+class DatabaseMigrations {
+
+  /**
+   * Version 2: composite index on photos (date, id) for keyset pagination of the photo grid
+   */
+  static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+      database.execSQL("CREATE INDEX IF NOT EXISTS `index_photos_date_id` ON `photos` (`date`, `id`)");
+    }
+  };
+
+  /**
+   * Version 3: visit routes are stored as a BLOB of delta encoded E7 coordinates instead of a
+   * string. SQLite cannot change the type of a column, so the visits table is recreated and every
+   * route is converted.
+   */
+  static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+      database.execSQL("CREATE TABLE IF NOT EXISTS `visits_new` (`id` INTEGER PRIMARY KEY "
+          + "AUTOINCREMENT NOT NULL, `visitTitle` TEXT, `date` INTEGER, `elapsedTime` INTEGER NOT "
+          + "NULL, `latLngList` BLOB, `imageCount` INTEGER NOT NULL, `file_path` TEXT)");
+      database.execSQL("INSERT INTO `visits_new` (`id`, `visitTitle`, `date`, `elapsedTime`, "
+          + "`imageCount`, `file_path`) SELECT `id`, `visitTitle`, `date`, `elapsedTime`, "
+          + "`imageCount`, `file_path` FROM `visits`");
+
+      try (Cursor cursor = database.query("SELECT `id`, `latLngList` FROM `visits` "
+          + "WHERE `latLngList` IS NOT NULL AND `latLngList` != ''")) {
+        while (cursor.moveToNext()) {
+          database.execSQL("UPDATE `visits_new` SET `latLngList` = ? WHERE `id` = ?",
+              new Object[]{LatLngListConverter.fromArrayList(
+                  LatLngListConverter.fromLegacyString(cursor.getString(1))), cursor.getInt(0)});
+        }
+      }
+
+      database.execSQL("DROP TABLE `visits`");
+      database.execSQL("ALTER TABLE `visits_new` RENAME TO `visits`");
+    }
+  };
+
+  /**
+   * Version 4: the photo count and the cover photo of every visit are stored on the visit, and kept
+   * up to date by triggers on the photos table
+   */
+  static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+      database.execSQL("ALTER TABLE `visits` ADD COLUMN `coverPhotoId` INTEGER");
+      database.execSQL("CREATE INDEX IF NOT EXISTS `index_visits_date` ON `visits` (`date`)");
+      database.execSQL("UPDATE `visits` SET "
+          + "`imageCount` = (SELECT COUNT(*) FROM `photos` WHERE `visitId` = `visits`.`id`), "
+          + "`coverPhotoId` = (SELECT MIN(`id`) FROM `photos` WHERE `visitId` = `visits`.`id`)");
+      createPhotoTriggers(database);
+    }
+  };
+
+  /**
+   * Version 5: the sensor readings of a photo are stored in nullable REAL columns instead of a comma
+   * separated string. The photos table is recreated, the readings are parsed by SQLite.
+   */
+  static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+      database.execSQL("CREATE TABLE IF NOT EXISTS `photos_new` (`id` INTEGER PRIMARY KEY "
+          + "AUTOINCREMENT NOT NULL, `visitId` INTEGER NOT NULL, `file_path` TEXT, `date` INTEGER, "
+          + "`latLng` TEXT, `temperature` REAL, `pressure` REAL, FOREIGN KEY(`visitId`) "
+          + "REFERENCES `visits`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+
+      // Readings were stored as "temperature,pressure,", CAST reads the number at the start
+      database.execSQL("INSERT INTO `photos_new` (`id`, `visitId`, `file_path`, `date`, `latLng`, "
+          + "`temperature`, `pressure`) SELECT `id`, `visitId`, `file_path`, `date`, `latLng`, "
+          + "CASE WHEN `sensors` IS NULL OR `sensors` = '' THEN NULL "
+          + "ELSE CAST(`sensors` AS REAL) END, "
+          + "CASE WHEN `sensors` IS NULL OR `sensors` = '' THEN NULL "
+          + "ELSE CAST(substr(`sensors`, instr(`sensors`, ',') + 1) AS REAL) END FROM `photos`");
+
+      database.execSQL("DROP TABLE `photos`");
+      database.execSQL("ALTER TABLE `photos_new` RENAME TO `photos`");
+      database.execSQL(
+          "CREATE INDEX IF NOT EXISTS `index_photos_visitId` ON `photos` (`visitId`)");
+      database.execSQL(
+          "CREATE INDEX IF NOT EXISTS `index_photos_date_id` ON `photos` (`date`, `id`)");
+      createPhotoTriggers(database);
+    }
+  };
+
+  /**
+   * Version 6: the location of a photo is stored in REAL lat and lng columns with a composite index
+   * instead of a "lat,lng" string, so photos can be queried by bounding box
+   */
+  static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+      database.execSQL("CREATE TABLE IF NOT EXISTS `photos_new` (`id` INTEGER PRIMARY KEY "
+          + "AUTOINCREMENT NOT NULL, `visitId` INTEGER NOT NULL, `file_path` TEXT, `date` INTEGER, "
+          + "`lat` REAL NOT NULL, `lng` REAL NOT NULL, `temperature` REAL, `pressure` REAL, "
+          + "FOREIGN KEY(`visitId`) REFERENCES `visits`(`id`) ON UPDATE NO ACTION "
+          + "ON DELETE CASCADE )");
+
+      // CAST reads the number at the start of the string, so it stops at the comma
+      database.execSQL("INSERT INTO `photos_new` (`id`, `visitId`, `file_path`, `date`, `lat`, "
+          + "`lng`, `temperature`, `pressure`) SELECT `id`, `visitId`, `file_path`, `date`, "
+          + "IFNULL(CAST(`latLng` AS REAL), 0), "
+          + "IFNULL(CAST(substr(`latLng`, instr(`latLng`, ',') + 1) AS REAL), 0), "
+          + "`temperature`, `pressure` FROM `photos`");
+
+      database.execSQL("DROP TABLE `photos`");
+      database.execSQL("ALTER TABLE `photos_new` RENAME TO `photos`");
+      database.execSQL(
+          "CREATE INDEX IF NOT EXISTS `index_photos_visitId` ON `photos` (`visitId`)");
+      database.execSQL(
+          "CREATE INDEX IF NOT EXISTS `index_photos_date_id` ON `photos` (`date`, `id`)");
+      database.execSQL(
+          "CREATE INDEX IF NOT EXISTS `index_photos_lat_lng` ON `photos` (`lat`, `lng`)");
+      createPhotoTriggers(database);
+    }
+  };
+
+  /**
+   * Version 7: the photo cluster pyramid, built from the existing photos
+   */
+  static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+      database.execSQL("CREATE TABLE IF NOT EXISTS `photo_clusters` (`zoom` INTEGER NOT NULL, "
+          + "`cellX` INTEGER NOT NULL, `cellY` INTEGER NOT NULL, `photoCount` INTEGER NOT NULL, "
+          + "`latSum` REAL NOT NULL, `lngSum` REAL NOT NULL, `representativePhotoId` INTEGER, "
+          + "PRIMARY KEY(`zoom`, `cellX`, `cellY`))");
+
+      // Same cell computation as ClusterPyramid, CAST truncates like the cast to int
+      for (int zoom = 0; zoom <= ClusterPyramid.MAX_ZOOM; zoom++) {
+        final double size = ClusterPyramid.cellSize(zoom);
+        database.execSQL("INSERT INTO `photo_clusters` SELECT " + zoom + ", "
+            + "CAST((`lng` + 180) / " + size + " AS INTEGER) AS `x`, "
+            + "CAST((`lat` + 90) / " + size + " AS INTEGER) AS `y`, "
+            + "COUNT(*), SUM(`lat`), SUM(`lng`), MIN(`id`) FROM `photos` GROUP BY `x`, `y`");
+      }
+    }
+  };
+
+  /**
+   * Version 8: metadata of image files, read once and cached until the file is modified
+   */
+  static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+      database.execSQL("CREATE TABLE IF NOT EXISTS `image_metadata` (`file_path` TEXT NOT NULL, "
+          + "`modified` INTEGER NOT NULL, `width` INTEGER NOT NULL, `height` INTEGER NOT NULL, "
+          + "`orientation` INTEGER NOT NULL, `thumbnailOffset` INTEGER NOT NULL, "
+          + "`thumbnailLength` INTEGER NOT NULL, PRIMARY KEY(`file_path`))");
+    }
+  };
+
+  /**
+   * Version 9: the size and the dominant colour of image files are added to their metadata. The
+   * table is only a cache, so it is recreated and filled again as photos are loaded.
+   */
+  static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+      database.execSQL("DROP TABLE IF EXISTS `image_metadata`");
+      database.execSQL("CREATE TABLE IF NOT EXISTS `image_metadata` (`file_path` TEXT NOT NULL, "
+          + "`modified` INTEGER NOT NULL, `fileSize` INTEGER NOT NULL, `width` INTEGER NOT NULL, "
+          + "`height` INTEGER NOT NULL, `orientation` INTEGER NOT NULL, "
+          + "`thumbnailOffset` INTEGER NOT NULL, `thumbnailLength` INTEGER NOT NULL, "
+          + "`dominantColor` INTEGER NOT NULL, PRIMARY KEY(`file_path`))");
+    }
+  };
+
+  /**
+   * Version 10: checkpoints of the media importer, so that rescans only import new files
+   */
+  static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+      database.execSQL("CREATE TABLE IF NOT EXISTS `import_checkpoints` (`root_path` TEXT NOT NULL, "
+          + "`modified` INTEGER NOT NULL, `file_path` TEXT NOT NULL, PRIMARY KEY(`root_path`))");
+    }
+  };
+
+  /**
+   * Version 11: the raw routes of visits are kept in their own table, and the routes stored with
+   * the visits are simplified
+   */
+  static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+      database.execSQL("CREATE TABLE IF NOT EXISTS `visit_routes` (`visitId` INTEGER NOT NULL, "
+          + "`latLngList` BLOB NOT NULL, PRIMARY KEY(`visitId`), FOREIGN KEY(`visitId`) "
+          + "REFERENCES `visits`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+      database.execSQL("INSERT INTO `visit_routes` (`visitId`, `latLngList`) "
+          + "SELECT `id`, `latLngList` FROM `visits` WHERE `latLngList` IS NOT NULL");
+
+      try (Cursor cursor = database.query("SELECT `visitId`, `latLngList` FROM `visit_routes`")) {
+        while (cursor.moveToNext()) {
+          database.execSQL("UPDATE `visits` SET `latLngList` = ? WHERE `id` = ?",
+              new Object[]{LatLngListConverter.fromArrayList(RouteHelper.simplify(
+                  LatLngListConverter.toArrayList(cursor.getBlob(1)),
+                  RouteHelper.STORED_TOLERANCE_METRES)), cursor.getInt(0)});
+        }
+      }
+    }
+  };
+
+  /**
+   * Version 12: the points of the route of an ongoing visit, written as they are recorded
+   */
+  static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+      database.execSQL("CREATE TABLE IF NOT EXISTS `route_points` (`visitId` INTEGER NOT NULL, "
+          + "`seq` INTEGER NOT NULL, `lat` REAL NOT NULL, `lng` REAL NOT NULL, "
+          + "`time` INTEGER NOT NULL, PRIMARY KEY(`visitId`, `seq`), FOREIGN KEY(`visitId`) "
+          + "REFERENCES `visits`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+    }
+  };
+
+  /**
+   * Version 13: whether a visit has ended. Visits with route points were ongoing when the app was
+   * killed, they are ended when their routes are recovered.
+   */
+  static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+    @Override
+    public void migrate(@NonNull SupportSQLiteDatabase database) {
+      database.execSQL("ALTER TABLE `visits` ADD COLUMN `ended` INTEGER NOT NULL DEFAULT 0");
+      database.execSQL("UPDATE `visits` SET `ended` = 1 "
+          + "WHERE `id` NOT IN (SELECT `visitId` FROM `route_points`)");
+    }
+  };
+
+  /**
+   * All migrations, in order of version
+   */
+  static final Migration[] ALL = {
+      MIGRATION_1_2,
+      MIGRATION_2_3,
+      MIGRATION_3_4,
+      MIGRATION_4_5,
+      MIGRATION_5_6,
+      MIGRATION_6_7,
+      MIGRATION_7_8,
+      MIGRATION_8_9,
+      MIGRATION_9_10,
+      MIGRATION_10_11,
+      MIGRATION_11_12,
+      MIGRATION_12_13
+  };
+
+  /**
+   * Create the triggers that keep <var>imageCount</var> and <var>coverPhotoId</var> of the visits
+   * in sync with the photos table. The cover of a visit is its first photo. Must be called again
+   * whenever the photos table is recreated.
+   *
+   * @param database The database
+   */
+  static void createPhotoTriggers(SupportSQLiteDatabase database) {
+    database.execSQL("CREATE TRIGGER IF NOT EXISTS `photos_after_insert` AFTER INSERT ON `photos` "
+        + "BEGIN UPDATE `visits` SET `imageCount` = `imageCount` + 1, "
+        + "`coverPhotoId` = COALESCE(`coverPhotoId`, NEW.`id`) WHERE `id` = NEW.`visitId`; END");
+    database.execSQL("CREATE TRIGGER IF NOT EXISTS `photos_after_delete` AFTER DELETE ON `photos` "
+        + "BEGIN UPDATE `visits` SET `imageCount` = `imageCount` - 1, "
+        + "`coverPhotoId` = CASE WHEN `coverPhotoId` = OLD.`id` "
+        + "THEN (SELECT MIN(`id`) FROM `photos` WHERE `visitId` = OLD.`visitId`) "
+        + "ELSE `coverPhotoId` END WHERE `id` = OLD.`visitId`; END");
+  }
+}
@@ -0,0 +1,22 @@
+package com.photour.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import com.photour.model.ImageMetadata;
+
+/**
+ * Data Access Object for the metadata of image files
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+@Dao
+public interface ImageMetadataDao {
+
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  void insert(ImageMetadata imageMetadata);
+
+  @Query("SELECT * FROM image_metadata WHERE file_path = :filePath")
+  ImageMetadata get(final String filePath);
+}
@@ -0,0 +1,89 @@
+package com.photour.database;
+
+import android.content.Context;
+import android.os.Process;
+import androidx.annotation.WorkerThread;
+import com.photour.model.ImageMetadata;
+import com.photour.task.ImageFile;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A class for the metadata of image files. Metadata is read from the file the first time, then
+ * served from the database until the file is modified.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class ImageMetadataRepository {
+
+  // Indexing opens and decodes files, so it runs on a background thread of its own instead of the
+  // query pool of Room. Only the insert of the result goes through the database writer.
+  private static final InstrumentedExecutor indexPool = new InstrumentedExecutor(
+      "metadata-indexer", 1, Process.THREAD_PRIORITY_BACKGROUND);
+
+  private ImageMetadataDao imageMetadataDao;
+
+  /**
+   * Constructor of {@link ImageMetadataRepository}
+   *
+   * @param context Any context of the app
+   */
+  public ImageMetadataRepository(Context context) {
+    AppDatabase db = AppDatabase.getDatabase(context);
+    imageMetadataDao = db.imageMetadataDao();
+  }
+
+  /**
+   * Get the metadata of an opened image file. The cached metadata is used if the file has not been
+   * modified since it was read, otherwise it is read again from the file and saved in the
+   * background.
+   *
+   * @param file The opened image file
+   * @return ImageMetadata The metadata of the file
+   * @throws IOException If the file cannot be read
+   */
+  @WorkerThread
+  public ImageMetadata getMetadata(ImageFile file) throws IOException {
+    final ImageMetadata cached = imageMetadataDao.get(file.getFilePath());
+
+    if (cached != null && cached.isCurrent(file.getModified(), file.getFileSize())) {
+      return cached;
+    }
+
+    final ImageMetadata metadata = file.readMetadata();
+    AppDatabase.writeExecutor.execute(() -> imageMetadataDao.insert(metadata));
+
+    return metadata;
+  }
+
+  /**
+   * Get the cached metadata of an image file without opening it. Only the size and the last
+   * modified time of the file are checked.
+   *
+   * @param filePath The file path of the image
+   * @return ImageMetadata The cached metadata, or null if it is missing or out of date
+   */
+  @WorkerThread
+  public ImageMetadata getCachedMetadata(String filePath) {
+    final ImageMetadata cached = imageMetadataDao.get(filePath);
+    final File stat = new File(filePath);
+
+    return cached != null && cached.isCurrent(stat.lastModified(), stat.length()) ? cached : null;
+  }
+
+  /**
+   * Read and save the metadata of a new image file in the background, so that the first load of
+   * the image does not have to parse it. Files are indexed one at a time, at background priority.
+   *
+   * @param filePath The file path of the image
+   */
+  public void index(String filePath) {
+    indexPool.execute(() -> {
+      try (ImageFile file = ImageFile.open(filePath)) {
+        getMetadata(file);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    });
+  }
+}
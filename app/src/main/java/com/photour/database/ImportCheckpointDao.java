@@ -0,0 +1,22 @@
+package com.photour.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import com.photour.model.ImportCheckpoint;
+
+/**
+ * Data Access Object for the checkpoints of the media importer
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+@Dao
+public interface ImportCheckpointDao {
+
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  void insert(ImportCheckpoint checkpoint);
+
+  @Query("SELECT * FROM import_checkpoints WHERE root_path = :rootPath")
+  ImportCheckpoint get(final String rootPath);
+}
@@ -0,0 +1,152 @@
+package com.photour.database;
+
+import android.os.Process;
+import androidx.annotation.NonNull;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size thread pool that counts how long its tasks wait in the queue and how long they run
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class InstrumentedExecutor extends ThreadPoolExecutor {
+
+  private final String name;
+  private final AtomicInteger maxQueueDepth = new AtomicInteger();
+  private final AtomicLong executed = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final AtomicLong totalRunNanos = new AtomicLong();
+
+  /**
+   * Constructor of {@link InstrumentedExecutor}
+   *
+   * @param name The name of the pool, used to name its threads
+   * @param threads The number of threads in the pool
+   */
+  InstrumentedExecutor(String name, int threads) {
+    this(name, threads, Process.THREAD_PRIORITY_DEFAULT);
+  }
+
+  /**
+   * Constructor of {@link InstrumentedExecutor} with threads of a given priority
+   *
+   * @param name The name of the pool, used to name its threads
+   * @param threads The number of threads in the pool
+   * @param threadPriority The Linux priority of the threads, see {@link Process}
+   */
+  InstrumentedExecutor(String name, int threads, int threadPriority) {
+    super(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+        new NamedThreadFactory(name, threadPriority));
+    this.name = name;
+  }
+
+  /**
+   * Execute the given task, timing its wait in the queue and its run
+   *
+   * @param command The task to execute
+   */
+  @Override
+  public void execute(@NonNull Runnable command) {
+    final long queuedAt = System.nanoTime();
+
+    super.execute(() -> {
+      final long startedAt = System.nanoTime();
+
+      try {
+        command.run();
+      } finally {
+        totalWaitNanos.addAndGet(startedAt - queuedAt);
+        totalRunNanos.addAndGet(System.nanoTime() - startedAt);
+        executed.incrementAndGet();
+      }
+    });
+
+    final int depth = getQueue().size();
+    int max;
+
+    do {
+      max = maxQueueDepth.get();
+    } while (depth > max && !maxQueueDepth.compareAndSet(max, depth));
+  }
+
+  /**
+   * Get the number of tasks waiting for a thread
+   *
+   * @return int The current queue depth
+   */
+  public int getQueueDepth() {
+    return getQueue().size();
+  }
+
+  /**
+   * Get the highest number of tasks that have been waiting for a thread at the same time
+   *
+   * @return int The maximum queue depth
+   */
+  public int getMaxQueueDepth() {
+    return maxQueueDepth.get();
+  }
+
+  /**
+   * Get the average time a task waited in the queue before it started
+   *
+   * @return double The average wait in milliseconds
+   */
+  public double getAverageWaitMillis() {
+    final long count = executed.get();
+    return count == 0 ? 0 : totalWaitNanos.get() / 1e6 / count;
+  }
+
+  /**
+   * Get the average time a task took to run
+   *
+   * @return double The average run time in milliseconds
+   */
+  public double getAverageRunMillis() {
+    final long count = executed.get();
+    return count == 0 ? 0 : totalRunNanos.get() / 1e6 / count;
+  }
+
+  /**
+   * Return the counters of this pool
+   *
+   * @return String The counters of this pool
+   */
+  @NonNull
+  @Override
+  public String toString() {
+    return String.format(Locale.ROOT,
+        "%s: executed=%d queued=%d maxQueued=%d avgWait=%.2fms avgRun=%.2fms", name,
+        executed.get(), getQueueDepth(), getMaxQueueDepth(), getAverageWaitMillis(),
+        getAverageRunMillis());
+  }
+
+  /**
+   * A {@link ThreadFactory} that names the threads after the pool
+   */
+  private static class NamedThreadFactory implements ThreadFactory {
+
+    private final String name;
+    private final int threadPriority;
+    private final AtomicInteger count = new AtomicInteger();
+
+    NamedThreadFactory(String name, int threadPriority) {
+      this.name = name;
+      this.threadPriority = threadPriority;
+    }
+
+    @Override
+    public Thread newThread(@NonNull Runnable r) {
+      return new Thread(() -> {
+        Process.setThreadPriority(threadPriority);
+        r.run();
+      }, name + "-" + count.incrementAndGet());
+    }
+  }
+}
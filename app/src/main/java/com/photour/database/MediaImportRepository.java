@@ -0,0 +1,126 @@
+package com.photour.database;
+
+import android.content.Context;
+import androidx.annotation.WorkerThread;
+import com.photour.model.ImportCheckpoint;
+import com.photour.model.Photo;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Repository for the media importer. Every method blocks, so it must be called from the worker
+ * thread of the importer.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ * @see com.photour.service.MediaImportService
+ */
+public class MediaImportRepository {
+
+  private AppDatabase db;
+  private PhotoDao photoDao;
+  private VisitDao visitDao;
+  private PhotoClusterDao photoClusterDao;
+  private ImportCheckpointDao importCheckpointDao;
+  private ImageMetadataRepository imageMetadataRepository;
+
+  /**
+   * Constructor of {@link MediaImportRepository}
+   *
+   * @param context Any context of the app
+   */
+  public MediaImportRepository(Context context) {
+    db = AppDatabase.getDatabase(context);
+    photoDao = db.imageDao();
+    visitDao = db.visitDao();
+    photoClusterDao = db.photoClusterDao();
+    importCheckpointDao = db.importCheckpointDao();
+    imageMetadataRepository = new ImageMetadataRepository(context);
+  }
+
+  /**
+   * Get the checkpoint of a directory
+   *
+   * @param rootPath The path of the imported directory
+   * @return ImportCheckpoint The checkpoint, or null if the directory has never been imported
+   */
+  @WorkerThread
+  public ImportCheckpoint getCheckpoint(String rootPath) {
+    return importCheckpointDao.get(rootPath);
+  }
+
+  /**
+   * Get the start of the earliest visit that has not ended yet. Such a visit has no duration, so
+   * the photos taken during it cannot be matched to it until it ends.
+   *
+   * @return Date The start of the visit, or null if every visit has ended
+   */
+  @WorkerThread
+  public Date getUnfinishedVisitStart() {
+    return visitDao.getUnfinishedVisitStart();
+  }
+
+  /**
+   * Add a photo to the visit that was in progress when it was taken
+   *
+   * @param candidate The photo read from a file, its visit ID is ignored
+   * @return Photo The photo with the ID of its visit, or null if it was taken outside of every
+   * finished visit
+   */
+  @WorkerThread
+  public Photo assignVisit(Photo candidate) {
+    final Integer visitId = visitDao.findVisitAt(candidate.date());
+
+    return visitId == null ? null : Photo.create(0, visitId, candidate.filePath(),
+        candidate.date(), candidate.lat(), candidate.lng(), null, null);
+  }
+
+  /**
+   * Import a batch of photos and move the checkpoint in a single transaction, so that an
+   * interrupted import resumes after the last checkpoint written. Photos already in the database
+   * are skipped. The metadata of the imported files is indexed afterwards.
+   *
+   * @param candidates The photos of the batch, with their visit IDs
+   * @param checkpoint The checkpoint to move to, or null to keep the current one
+   * @return int The number of photos imported
+   */
+  @WorkerThread
+  public int importBatch(List<Photo> candidates, ImportCheckpoint checkpoint) {
+    final List<Photo> photos = db.runInTransaction(() -> {
+      final List<String> filePaths = new ArrayList<>();
+
+      for (Photo candidate : candidates) {
+        filePaths.add(candidate.filePath());
+      }
+
+      final Set<String> existing = filePaths.isEmpty()
+          ? new HashSet<>() : new HashSet<>(photoDao.getExistingFilePaths(filePaths));
+      final List<Photo> inserted = new ArrayList<>();
+
+      for (Photo candidate : candidates) {
+        if (!existing.contains(candidate.filePath())) {
+          inserted.add(candidate);
+        }
+      }
+
+      if (!inserted.isEmpty()) {
+        final long[] ids = photoDao.insertAll(inserted);
+        ClusterPyramid.addPhotos(photoClusterDao, ids, inserted);
+      }
+
+      if (checkpoint != null) {
+        importCheckpointDao.insert(checkpoint);
+      }
+
+      return inserted;
+    });
+
+    for (Photo photo : photos) {
+      imageMetadataRepository.index(photo.filePath());
+    }
+
+    return photos.size();
+  }
+}
@@ -0,0 +1,54 @@
+package com.photour.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import com.photour.model.ClusterCell;
+import com.photour.model.PhotoCluster;
+import java.util.List;
+
+/**
+ * Data Access Object for the photo cluster pyramid
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+@Dao
+public interface PhotoClusterDao {
+
+  @Insert
+  void insert(PhotoCluster photoCluster);
+
+  @Query("UPDATE photo_clusters SET photoCount = photoCount + 1, latSum = latSum + :lat, "
+      + "lngSum = lngSum + :lng WHERE zoom = :zoom AND cellX = :cellX AND cellY = :cellY")
+  int addToCell(final int zoom, final int cellX, final int cellY, final double lat,
+      final double lng);
+
+  @Query("UPDATE photo_clusters SET photoCount = photoCount - 1, latSum = latSum - :lat, "
+      + "lngSum = lngSum - :lng WHERE zoom = :zoom AND cellX = :cellX AND cellY = :cellY")
+  int removeFromCell(final int zoom, final int cellX, final int cellY, final double lat,
+      final double lng);
+
+  @Query("DELETE FROM photo_clusters WHERE zoom = :zoom AND cellX = :cellX AND cellY = :cellY "
+      + "AND photoCount <= 0")
+  int deleteIfEmpty(final int zoom, final int cellX, final int cellY);
+
+  @Query("UPDATE photo_clusters SET representativePhotoId = (SELECT MIN(id) FROM photos "
+      + "WHERE lat >= :south AND lat < :north AND lng >= :west AND lng < :east) "
+      + "WHERE zoom = :zoom AND cellX = :cellX AND cellY = :cellY "
+      + "AND representativePhotoId = :photoId")
+  int replaceRepresentative(final int zoom, final int cellX, final int cellY, final int photoId,
+      final double south, final double west, final double north, final double east);
+
+  @Query("DELETE FROM photo_clusters")
+  void deleteAll();
+
+  @Query("SELECT c.cellX AS cellX, c.cellY AS cellY, c.photoCount AS photoCount, "
+      + "c.latSum / c.photoCount AS lat, c.lngSum / c.photoCount AS lng, "
+      + "c.representativePhotoId AS representativePhotoId, p.file_path AS file_path "
+      + "FROM photo_clusters c LEFT JOIN photos p ON p.id = c.representativePhotoId "
+      + "WHERE c.zoom = :zoom AND c.cellY BETWEEN :minY AND :maxY AND (CASE "
+      + "WHEN :minX <= :maxX THEN c.cellX BETWEEN :minX AND :maxX "
+      + "ELSE c.cellX >= :minX OR c.cellX <= :maxX END)")
+  List<ClusterCell> getCells(final int zoom, final int minX, final int minY, final int maxX,
+      final int maxY);
+}
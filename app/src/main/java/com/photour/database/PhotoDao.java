@@ -5,9 +5,8 @@ import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
-import androidx.room.TypeConverters;
-import com.photour.converter.LatLngConverter;
 import com.photour.model.Photo;
+import com.photour.model.PhotoRange;
 import java.util.Date;
 import java.util.List;
 
@@ -17,11 +16,13 @@ import java.util.List;
  * @author Zer Jun Eng, Jia Hua Ng
  */
 @Dao
-@TypeConverters({LatLngConverter.class})
 public interface PhotoDao {
 
   @Insert
-  void insert(Photo image);
+  long insert(Photo image);
+
+  @Insert
+  long[] insertAll(List<Photo> images);
 
   @Delete
   void delete(Photo image);
@@ -32,11 +33,36 @@ public interface PhotoDao {
   @Query("SELECT * FROM photos")
   List<Photo> getAllPhotos();
 
-  @Query("SELECT * FROM photos ORDER BY date DESC")
-  LiveData<List<Photo>> getAllDesc();
+  @Query("SELECT * FROM photos ORDER BY date DESC, id DESC LIMIT :limit")
+  List<Photo> getFirstPageDesc(final int limit);
+
+  @Query("SELECT * FROM photos WHERE date < :date OR (date = :date AND id < :id)"
+      + " ORDER BY date DESC, id DESC LIMIT :limit")
+  List<Photo> getPageDescAfter(final Date date, final int id, final int limit);
+
+  @Query("SELECT * FROM photos ORDER BY date ASC, id ASC LIMIT :limit")
+  List<Photo> getFirstPageAsc(final int limit);
+
+  @Query("SELECT * FROM photos WHERE date > :date OR (date = :date AND id > :id)"
+      + " ORDER BY date ASC, id ASC LIMIT :limit")
+  List<Photo> getPageAscAfter(final Date date, final int id, final int limit);
 
-  @Query("SELECT * FROM photos ORDER BY date ASC")
-  LiveData<List<Photo>> getAllAsc();
+  @Query("SELECT COUNT(*) AS count, COALESCE(SUM(id), 0) AS idSum FROM photos"
+      + " WHERE date > :date OR (date = :date AND id >= :id)")
+  PhotoRange getRangeDescTo(final Date date, final int id);
+
+  @Query("SELECT COUNT(*) AS count, COALESCE(SUM(id), 0) AS idSum FROM photos"
+      + " WHERE date < :date OR (date = :date AND id <= :id)")
+  PhotoRange getRangeAscTo(final Date date, final int id);
+
+  @Query("SELECT * FROM photos WHERE lat BETWEEN :south AND :north AND (CASE"
+      + " WHEN :west <= :east THEN lng BETWEEN :west AND :east"
+      + " ELSE lng >= :west OR lng <= :east END)")
+  List<Photo> getInBounds(final double south, final double west, final double north,
+      final double east);
+
+  @Query("SELECT file_path FROM photos WHERE file_path IN (:filePaths)")
+  List<String> getExistingFilePaths(final List<String> filePaths);
 
   @Query("SELECT * FROM photos WHERE id IN (:ids)")
   LiveData<List<Photo>> loadAllByIds(int[] ids);
@@ -47,4 +73,7 @@ public interface PhotoDao {
   @Query("SELECT * FROM photos WHERE visitId=:visitId")
   LiveData<List<Photo>> findByVisit(final int visitId);
 
+  @Query("SELECT * FROM photos WHERE visitId=:visitId")
+  List<Photo> getPhotosOfVisit(final int visitId);
+
 }
@@ -0,0 +1,216 @@
+package com.photour.database;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.room.InvalidationTracker;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.photour.model.Photo;
+import com.photour.model.PhotoRange;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A paged feed of photos ordered by (date, id). Pages are fetched with keyset pagination, so each
+ * page costs the same regardless of how deep into the library it is. When the photos table
+ * changes, the loaded photos are only reloaded if the change falls among them. Photos added after
+ * the last loaded photo are appended like a new page.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class PhotoFeed {
+
+  public static final int PAGE_SIZE = 60;
+
+  // Generations are unique across feeds, so a consumer can tell when it has switched feed
+  private static final AtomicInteger generations = new AtomicInteger();
+
+  private final AppDatabase db;
+  private final PhotoDao photoDao;
+  private final boolean sortByAsc;
+
+  // Every load runs in order, so the fields below are only touched by one thread at a time
+  private final Executor executor = MoreExecutors
+      .newSequentialExecutor(AppDatabase.readExecutor);
+  private final List<Photo> loaded = new ArrayList<>();
+  private long loadedIdSum = 0;
+  private int generation;
+  private boolean hasMore = true;
+
+  private final AtomicBoolean pageRequested = new AtomicBoolean(false);
+  private final MutableLiveData<Page> pages = new MutableLiveData<>();
+  private final InvalidationTracker.Observer observer;
+
+  /**
+   * Constructor of {@link PhotoFeed}. The first page is loaded immediately.
+   *
+   * @param db The database object
+   * @param sortByAsc {@code true} to load the oldest photos first
+   */
+  PhotoFeed(AppDatabase db, boolean sortByAsc) {
+    this.db = db;
+    this.photoDao = db.imageDao();
+    this.sortByAsc = sortByAsc;
+
+    // Check the pages that have been loaded when the photos table has changed
+    observer = new InvalidationTracker.Observer("photos") {
+      @Override
+      public void onInvalidated(@NonNull Set<String> tables) {
+        executor.execute(PhotoFeed.this::refresh);
+      }
+    };
+    db.getInvalidationTracker().addObserver(observer);
+
+    executor.execute(this::reload);
+  }
+
+  /**
+   * Get the loaded pages. Every emission contains all photos loaded so far
+   *
+   * @return LiveData<Page> The loaded pages
+   */
+  public LiveData<Page> getPages() {
+    return pages;
+  }
+
+  /**
+   * Load the next page if there is one. Calls made while a page is being loaded are ignored.
+   */
+  public void loadNextPage() {
+    if (!pageRequested.compareAndSet(false, true)) {
+      return;
+    }
+
+    executor.execute(() -> {
+      try {
+        if (!hasMore) {
+          return;
+        }
+
+        append(queryPage(loaded.isEmpty() ? null : loaded.get(loaded.size() - 1), PAGE_SIZE));
+        publish();
+      } finally {
+        pageRequested.set(false);
+      }
+    });
+  }
+
+  /**
+   * Stop observing the photos table. Must be called when the feed is no longer used.
+   */
+  public void close() {
+    db.getInvalidationTracker().removeObserver(observer);
+  }
+
+  /**
+   * Bring the loaded photos up to date after the photos table has changed. The loaded range is
+   * compared by the number of its photos and the sum of their IDs, without loading them. If it is
+   * unchanged, the change is after the last loaded photo and the generation is kept. Otherwise
+   * photos have been inserted, deleted or reordered among the loaded ones, and the feed is
+   * reloaded from the start.
+   */
+  private void refresh() {
+    if (loaded.isEmpty()) {
+      reload();
+      return;
+    }
+
+    final Photo last = loaded.get(loaded.size() - 1);
+    final PhotoRange range = sortByAsc
+        ? photoDao.getRangeAscTo(last.date(), last.id())
+        : photoDao.getRangeDescTo(last.date(), last.id());
+
+    if (range.count != loaded.size() || range.idSum != loadedIdSum) {
+      reload();
+      return;
+    }
+
+    // The next page picks up the new photos, unless the end of the feed had been reached
+    if (!hasMore) {
+      final List<Photo> page = queryPage(last, PAGE_SIZE);
+
+      if (!page.isEmpty()) {
+        append(page);
+        publish();
+      }
+    }
+  }
+
+  /**
+   * Re-query every loaded photo (at least one page) from the start of the feed
+   */
+  private void reload() {
+    final int limit = Math.max(loaded.size(), PAGE_SIZE);
+    final List<Photo> photos = queryPage(null, limit);
+
+    loaded.clear();
+    loadedIdSum = 0;
+    append(photos);
+    hasMore = photos.size() == limit;
+    generation = generations.incrementAndGet();
+    publish();
+  }
+
+  /**
+   * Add a page at the end of the loaded photos
+   *
+   * @param page The photos of the page
+   */
+  private void append(List<Photo> page) {
+    loaded.addAll(page);
+    hasMore = page.size() == PAGE_SIZE;
+
+    for (Photo photo : page) {
+      loadedIdSum += photo.id();
+    }
+  }
+
+  /**
+   * Query a page of photos after the given photo
+   *
+   * @param after The last photo of the previous page, or null for the first page
+   * @param limit Maximum number of photos in the page
+   * @return List<Photo> The photos in the page
+   */
+  private List<Photo> queryPage(Photo after, int limit) {
+    if (after == null) {
+      return sortByAsc ? photoDao.getFirstPageAsc(limit) : photoDao.getFirstPageDesc(limit);
+    }
+
+    return sortByAsc
+        ? photoDao.getPageAscAfter(after.date(), after.id(), limit)
+        : photoDao.getPageDescAfter(after.date(), after.id(), limit);
+  }
+
+  /**
+   * Post a snapshot of the loaded photos
+   */
+  private void publish() {
+    pages.postValue(new Page(generation, Collections.unmodifiableList(new ArrayList<>(loaded)),
+        hasMore));
+  }
+
+  /**
+   * A snapshot of the feed. Photos of the same generation only ever grow at the end, a new
+   * generation means the feed has been reloaded from the start.
+   *
+   * @author Zer Jun Eng, Jia Hua Ng
+   */
+  public static class Page {
+
+    public final int generation;
+    public final List<Photo> photos;
+    public final boolean hasMore;
+
+    Page(int generation, List<Photo> photos, boolean hasMore) {
+      this.generation = generation;
+      this.photos = photos;
+      this.hasMore = hasMore;
+    }
+  }
+}
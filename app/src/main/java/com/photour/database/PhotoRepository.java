@@ -2,7 +2,10 @@ package com.photour.database;
 
 import android.app.Application;
 import androidx.lifecycle.LiveData;
+import com.google.android.libraries.maps.model.LatLngBounds;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.photour.helper.FutureHelper;
+import com.photour.model.ClusterCell;
 import com.photour.model.Photo;
 import java.util.List;
 
@@ -13,7 +16,11 @@ import java.util.List;
  */
 public class PhotoRepository {
 
+  private AppDatabase db;
   private PhotoDao photoDao;
+  private PhotoClusterDao photoClusterDao;
+  private ImageMetadataRepository imageMetadataRepository;
+  private PhotoWriteBuffer writeBuffer = new PhotoWriteBuffer(this);
 
   /**
    * Constructor of {@link PhotoRepository}
@@ -21,35 +28,91 @@ public class PhotoRepository {
    * @param application Application of MainActivity
    */
   public PhotoRepository(Application application) {
-    AppDatabase db = AppDatabase.getDatabase(application);
+    db = AppDatabase.getDatabase(application);
     photoDao = db.imageDao();
+    photoClusterDao = db.photoClusterDao();
+    imageMetadataRepository = new ImageMetadataRepository(application);
   }
 
   /**
-   * Add Photo into the database
+   * Add Photo into the database. Photos added in quick succession are batched and inserted in one
+   * transaction, see {@link #flush()}. Must be called on the main thread.
    *
    * @param photo Photo object to be inserted into the database
    */
   public void insert(Photo photo) {
-    AppDatabase.databaseExecutor.execute(() -> photoDao.insert(photo));
+    writeBuffer.add(photo);
   }
 
   /**
-   * Get all Photos from database in LiveData form
+   * Add Photos into the database, and into the cluster pyramid, in a single transaction. The
+   * metadata of the photo files is indexed afterwards.
    *
-   * @return LiveData<List < Photo>> List of Photos
+   * @param photos Photo objects to be inserted into the database
    */
-  public LiveData<List<Photo>> getAllLivePhotosDesc() {
-    return FutureHelper.genericFuture(() -> photoDao.getAllDesc());
+  public void insertAll(List<Photo> photos) {
+    if (photos.isEmpty()) {
+      return;
+    }
+
+    AppDatabase.writeExecutor.execute(() -> db.runInTransaction(() -> {
+      final long[] ids = photoDao.insertAll(photos);
+      ClusterPyramid.addPhotos(photoClusterDao, ids, photos);
+    }));
+
+    for (Photo photo : photos) {
+      imageMetadataRepository.index(photo.filePath());
+    }
+  }
+
+  /**
+   * Insert the photos waiting in the current batch now. Must be called on the main thread.
+   */
+  public void flush() {
+    writeBuffer.flush();
+  }
+
+  /**
+   * Get a paged feed of all Photos, ordered by date. The caller must {@link PhotoFeed#close()} the
+   * feed when it is no longer used.
+   *
+   * @param sortByAsc {@code true} to load the oldest photos first
+   * @return PhotoFeed A new {@link PhotoFeed}
+   */
+  public PhotoFeed getPhotoFeed(boolean sortByAsc) {
+    return new PhotoFeed(db, sortByAsc);
+  }
+
+  /**
+   * Get all Photos from database asynchronously
+   *
+   * @return ListenableFuture<List<Photo>> The future of all photos
+   */
+  public ListenableFuture<List<Photo>> getAllPhotos() {
+    return FutureHelper.readFuture(() -> photoDao.getAllPhotos());
+  }
+
+  /**
+   * Get the Photos inside a bounding box asynchronously, such as the visible region of a map. Boxes
+   * that cross the 180th meridian are supported.
+   *
+   * @param bounds The bounding box
+   * @return ListenableFuture<List<Photo>> The future of the photos inside the bounding box
+   */
+  public ListenableFuture<List<Photo>> getPhotosInBounds(LatLngBounds bounds) {
+    return FutureHelper.readFuture(() -> photoDao.getInBounds(bounds.southwest.latitude,
+        bounds.southwest.longitude, bounds.northeast.latitude, bounds.northeast.longitude));
   }
 
   /**
-   * Get all Photos from database
+   * Get the cells of the cluster pyramid inside a bounding box asynchronously
    *
-   * @return List<Photo>
+   * @param bounds The bounding box
+   * @param zoom The zoom level of the pyramid, between 0 and {@link ClusterPyramid#MAX_ZOOM}
+   * @return ListenableFuture<List<ClusterCell>> The future of the cells inside the bounding box
    */
-  public List<Photo> getAllPhotos() {
-    return FutureHelper.genericFuture(() -> photoDao.getAllPhotos());
+  public ListenableFuture<List<ClusterCell>> getClustersInBounds(LatLngBounds bounds, int zoom) {
+    return FutureHelper.readFuture(() -> ClusterPyramid.getCells(photoClusterDao, bounds, zoom));
   }
 
   /**
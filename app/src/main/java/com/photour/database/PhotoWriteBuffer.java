@@ -0,0 +1,67 @@
+package com.photour.database;
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.MainThread;
+import com.photour.model.Photo;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coalesces photo insertions into batches, so that photos taken or picked in quick succession are
+ * inserted in one transaction. A batch is written once it is full, or shortly after its first photo
+ * has been added. Every method must be called on the main thread.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+class PhotoWriteBuffer {
+
+  static final int MAX_BATCH_SIZE = 50;
+  static final long FLUSH_DELAY_MS = 500;
+
+  private final PhotoRepository photoRepository;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final Runnable flushRunnable = this::flush;
+  private final List<Photo> pending = new ArrayList<>();
+
+  /**
+   * Constructor of {@link PhotoWriteBuffer}
+   *
+   * @param photoRepository The repository that writes the batches
+   */
+  PhotoWriteBuffer(PhotoRepository photoRepository) {
+    this.photoRepository = photoRepository;
+  }
+
+  /**
+   * Add a photo to the current batch
+   *
+   * @param photo The photo to be inserted
+   */
+  @MainThread
+  void add(Photo photo) {
+    pending.add(photo);
+
+    if (pending.size() >= MAX_BATCH_SIZE) {
+      flush();
+    } else if (pending.size() == 1) {
+      handler.postDelayed(flushRunnable, FLUSH_DELAY_MS);
+    }
+  }
+
+  /**
+   * Write the current batch now, if there is one
+   */
+  @MainThread
+  void flush() {
+    handler.removeCallbacks(flushRunnable);
+
+    if (pending.isEmpty()) {
+      return;
+    }
+
+    final List<Photo> batch = new ArrayList<>(pending);
+    pending.clear();
+    photoRepository.insertAll(batch);
+  }
+}
@@ -0,0 +1,27 @@
+package com.photour.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import com.photour.model.RoutePoint;
+import java.util.List;
+
+/**
+ * Data Access Object for the route points of ongoing visits
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+@Dao
+public interface RoutePointDao {
+
+  // A point that has already been written is kept as it is
+  @Insert(onConflict = OnConflictStrategy.IGNORE)
+  void insertAll(List<RoutePoint> routePoints);
+
+  @Query("SELECT * FROM route_points WHERE visitId = :visitId ORDER BY seq")
+  List<RoutePoint> getPoints(final long visitId);
+
+  @Query("DELETE FROM route_points WHERE visitId = :visitId")
+  void delete(final long visitId);
+}
@@ -2,14 +2,16 @@ package com.photour.database;
 
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
-import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
 import androidx.room.TypeConverters;
 import com.google.android.libraries.maps.model.LatLng;
 import com.photour.converter.LatLngListConverter;
 import com.photour.model.Visit;
+import com.photour.model.VisitSummary;
+import com.photour.model.VisitTitle;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -27,20 +29,38 @@ public interface VisitDao {
   @Query("UPDATE visits SET visitTitle = :visitTitle WHERE id = :id")
   int update(final long id, final String visitTitle);
 
-  @Query("UPDATE visits SET elapsedTime = :elapsedTime, latLngList = :latLngList WHERE id = :id")
+  @Query("UPDATE visits SET elapsedTime = :elapsedTime, latLngList = :latLngList, ended = 1 "
+      + "WHERE id = :id")
   void update(final long id, final long elapsedTime, final ArrayList<LatLng> latLngList);
 
-  @Query("SELECT visits.*, photos.file_path AS file_path, COUNT(photos.file_path) AS imageCount" +
-          " FROM visits LEFT JOIN photos ON visits.id = photos.visitId " +
-          "GROUP BY visits.id ORDER BY visits.date DESC")
-  LiveData<List<Visit>> getAllVisits();
+  @Query("SELECT visits.id, visits.visitTitle, visits.date, visits.imageCount, " +
+          "photos.file_path AS file_path FROM visits " +
+          "LEFT JOIN photos ON photos.id = visits.coverPhotoId ORDER BY visits.date DESC")
+  LiveData<List<VisitSummary>> getAllVisits();
 
   @Query("SELECT visitTitle FROM visits WHERE id = :id")
   String getVisitTitle(final long id);
 
+  @Query("SELECT date FROM visits WHERE id = :id")
+  Date getDate(final long id);
+
+  @Query("SELECT DISTINCT visits.id AS id, visits.visitTitle AS visitTitle FROM visits " +
+          "INNER JOIN photos ON visits.id = photos.visitId")
+  List<VisitTitle> getTitlesOfVisitsWithPhotos();
+
   @Query("SELECT * FROM visits WHERE id = :id")
   LiveData<Visit> getLiveVisit(final long id);
 
-  @Delete
-  int delete(Visit visit);
+  @Query("SELECT id FROM visits WHERE date <= :date AND date + elapsedTime >= :date "
+      + "ORDER BY date DESC LIMIT 1")
+  Integer findVisitAt(final Date date);
+
+  @Query("SELECT MIN(date) FROM visits WHERE ended = 0")
+  Date getUnfinishedVisitStart();
+
+  @Query("SELECT id FROM visits WHERE ended = 0")
+  List<Integer> getUnfinishedVisitIds();
+
+  @Query("DELETE FROM visits WHERE id = :id")
+  int delete(final long id);
 }
@@ -1,12 +1,21 @@
 package com.photour.database;
 
 import android.app.Application;
+import androidx.annotation.WorkerThread;
 import androidx.lifecycle.LiveData;
 import com.google.android.libraries.maps.model.LatLng;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.photour.helper.FutureHelper;
+import com.photour.helper.RouteHelper;
+import com.photour.model.Photo;
+import com.photour.model.RoutePoint;
 import com.photour.model.Visit;
+import com.photour.model.VisitRoute;
+import com.photour.model.VisitSummary;
+import com.photour.model.VisitTitle;
 import com.photour.ui.photo.PhotoFragment;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -16,7 +25,10 @@ import java.util.List;
  */
 public class VisitRepository {
 
+  private AppDatabase db;
   private VisitDao visitDao;
+  private VisitRouteDao visitRouteDao;
+  private RoutePointDao routePointDao;
 
   /**
    * Constructor of {@link VisitRepository}
@@ -24,31 +36,103 @@ public class VisitRepository {
    * @param application Application of MainActivity
    */
   public VisitRepository(Application application) {
-    AppDatabase db = AppDatabase.getDatabase(application);
+    db = AppDatabase.getDatabase(application);
     visitDao = db.visitDao();
+    visitRouteDao = db.visitRouteDao();
+    routePointDao = db.routePointDao();
   }
 
   /**
    * Insert a new visit into Visits table
    *
    * @param visit The new visit to be inserted
-   * @return long The row ID of the new inserted visit
+   * @return ListenableFuture<Long> The future of the row ID of the new inserted visit
    */
-  public long insert(Visit visit) {
-    Object result = FutureHelper.genericFuture(() -> visitDao.insert(visit));
-
-    return result == null ? 0 : (long) result;
+  public ListenableFuture<Long> insert(Visit visit) {
+    return FutureHelper.writeFuture(() -> visitDao.insert(visit));
   }
 
   /**
-   * Update the elapsedTime and latLngList of a visit
+   * Update the elapsedTime and latLngList of a visit when it ends. The visit stores the simplified
+   * route, the raw route is kept in the visit_routes table and the route points written during the
+   * visit are removed, all in the same transaction.
    *
    * @param id The row ID of the visit
    * @param elapsedTime Elapsed time of the visit
    * @param latLngList The new list of LatLng
    */
   public void update(final long id, final long elapsedTime, final ArrayList<LatLng> latLngList) {
-    AppDatabase.databaseExecutor.execute(() -> visitDao.update(id, elapsedTime, latLngList));
+    // The list is still updated by the visit, so copy it before leaving the main thread
+    final ArrayList<LatLng> route = new ArrayList<>(latLngList);
+
+    AppDatabase.writeExecutor
+        .execute(() -> db.runInTransaction(() -> saveRoute(id, elapsedTime, route)));
+  }
+
+  /**
+   * Append points to the route of an ongoing visit
+   *
+   * @param routePoints The new points of the route
+   */
+  public void appendRoutePoints(final List<RoutePoint> routePoints) {
+    AppDatabase.writeExecutor.execute(() -> routePointDao.insertAll(routePoints));
+  }
+
+  /**
+   * End the visits that were still ongoing when the app was killed, rebuilding their routes from
+   * their route points. A visit killed before its first points were written ends with no route.
+   * Must only be called when no visit is being recorded.
+   */
+  public void recoverUnfinishedRoutes() {
+    AppDatabase.writeExecutor.execute(() -> db.runInTransaction(() -> {
+      for (int id : visitDao.getUnfinishedVisitIds()) {
+        final List<RoutePoint> points = routePointDao.getPoints(id);
+        final ArrayList<LatLng> route = new ArrayList<>(points.size());
+
+        for (RoutePoint point : points) {
+          route.add(new LatLng(point.lat(), point.lng()));
+        }
+
+        // The visit lasted at least until its last point was written
+        final Date date = visitDao.getDate(id);
+        final long elapsedTime = date != null && !points.isEmpty()
+            ? Math.max(0, points.get(points.size() - 1).time() - date.getTime()) : 0;
+        saveRoute(id, elapsedTime, route);
+      }
+    }));
+  }
+
+  /**
+   * Save the final route of a visit. Must be called in a transaction.
+   *
+   * @param id The row ID of the visit
+   * @param elapsedTime Elapsed time of the visit
+   * @param route The raw route of the visit
+   */
+  @WorkerThread
+  private void saveRoute(long id, long elapsedTime, ArrayList<LatLng> route) {
+    visitDao.update(id, elapsedTime,
+        RouteHelper.simplify(route, RouteHelper.STORED_TOLERANCE_METRES));
+
+    if (!route.isEmpty()) {
+      visitRouteDao.insert(VisitRoute.create((int) id, route));
+    }
+
+    routePointDao.delete(id);
+  }
+
+  /**
+   * Get the raw route of a visit, with every point that was recorded
+   *
+   * @param id The row ID of the visit
+   * @return ListenableFuture<ArrayList<LatLng>> The future of the raw route, null if the visit has
+   * no route
+   */
+  public ListenableFuture<ArrayList<LatLng>> getRawRoute(final long id) {
+    return FutureHelper.readFuture(() -> {
+      final VisitRoute visitRoute = visitRouteDao.get((int) id);
+      return visitRoute != null ? visitRoute.latLngList() : null;
+    });
   }
 
   /**
@@ -56,27 +140,38 @@ public class VisitRepository {
    *
    * @param id The row ID of the visit
    * @param visitTitle The new visit title of the visit
+   * @return ListenableFuture<Boolean> The future of whether the visit has been updated
    */
-  public boolean update(long id, String visitTitle) {
+  public ListenableFuture<Boolean> update(long id, String visitTitle) {
     return FutureHelper.rowOperationFuture(() -> visitDao.update(id, visitTitle));
   }
 
   /**
-   * Delete a visit from the Visits table
+   * Delete a visit from the Visits table. Its photos are deleted by the foreign key, and removed
+   * from the cluster pyramid in the same transaction.
    *
-   * @param visit The {@link Visit} to be deleted
-   * @return int The row ID of the deleted visit
+   * @param id The row ID of the visit to be deleted
+   * @return ListenableFuture<Boolean> The future of whether the visit has been deleted
    */
-  public boolean delete(Visit visit) {
-    return FutureHelper.rowOperationFuture(() -> visitDao.delete(visit));
+  public ListenableFuture<Boolean> delete(final long id) {
+    return FutureHelper.rowOperationFuture(() -> db.runInTransaction(() -> {
+      final List<Photo> photos = db.imageDao().getPhotosOfVisit((int) id);
+      final int rows = visitDao.delete(id);
+
+      for (Photo photo : photos) {
+        ClusterPyramid.removePhoto(db.photoClusterDao(), photo);
+      }
+
+      return rows;
+    }));
   }
 
   /**
-   * Gets all visits in database
+   * Gets the summary of all visits in database, without their routes
    *
-   * @return LiveData<List < Visit>> List of visits
+   * @return LiveData<List<VisitSummary>> List of visits
    */
-  public LiveData<List<Visit>> getAllVisits() {
+  public LiveData<List<VisitSummary>> getAllVisits() {
     return visitDao.getAllVisits();
   }
 
@@ -84,10 +179,21 @@ public class VisitRepository {
    * Function to get visit title for {@link PhotoFragment}
    *
    * @param id ID of Visit
-   * @return String title of Visit
+   * @return ListenableFuture<String> The future of the title of Visit
+   */
+  public ListenableFuture<String> getVisitTitle(final long id) {
+    return FutureHelper.readFuture(() -> visitDao.getVisitTitle(id));
+  }
+
+  /**
+   * Get the titles of every visit that has at least one photo, in a single query. Must be called
+   * from a background thread.
+   *
+   * @return List<VisitTitle> The IDs and titles of the visits
    */
-  public String getVisitTitle(final long id) {
-    return FutureHelper.stringFuture(() -> visitDao.getVisitTitle(id));
+  @WorkerThread
+  public List<VisitTitle> getTitlesOfVisitsWithPhotos() {
+    return visitDao.getTitlesOfVisitsWithPhotos();
   }
 
   /**
@@ -97,6 +203,6 @@ public class VisitRepository {
    * @return LiveData<Visit> the visit of LiveData type
    */
   public LiveData<Visit> getLiveVisit(final long id) {
-    return FutureHelper.genericFuture(() -> visitDao.getLiveVisit(id));
+    return visitDao.getLiveVisit(id);
   }
 }
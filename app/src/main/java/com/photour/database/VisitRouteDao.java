@@ -0,0 +1,22 @@
+package com.photour.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import com.photour.model.VisitRoute;
+
+/**
+ * Data Access Object for the raw routes of visits
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+@Dao
+public interface VisitRouteDao {
+
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  void insert(VisitRoute visitRoute);
+
+  @Query("SELECT * FROM visit_routes WHERE visitId = :visitId")
+  VisitRoute get(final int visitId);
+}
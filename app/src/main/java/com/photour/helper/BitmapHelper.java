@@ -1,7 +1,15 @@
 package com.photour.helper;
 
+import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import androidx.annotation.WorkerThread;
+import androidx.exifinterface.media.ExifInterface;
+import com.photour.model.ImageMetadata;
+import com.photour.task.ImageFile;
+import java.io.IOException;
 
 /**
  * A helper class for decoding {@link Bitmap}
@@ -46,33 +54,176 @@ public class BitmapHelper {
   }
 
   /**
-   * Function to reduce bitmap size
+   * Decode a photo in a single pass, down sampled by a power of 2 then scaled so that it is just
+   * large enough to cover the required size, and rotated to its EXIF orientation. The dimensions
+   * come from the metadata, so the bounds are not decoded again. The bitmap is decoded into a
+   * pooled bitmap from {@link BitmapPool} when one is large enough, and is mutable so that it can
+   * be pooled again.
    *
    * Referenced Android Developer: Loading Large Bitmaps Efficiently
    *
-   * @param filepath File path of image
+   * @param file The opened image file
+   * @param metadata The metadata of the file
    * @param reqWidth required width
    * @param reqHeight required height
-   * @return Bitmap the compressed bitmap
+   * @param config The config of the bitmap, {@link Bitmap.Config#RGB_565} halves the memory of
+   * photos without transparency
+   * @return Bitmap the decoded bitmap, or null if the photo cannot be decoded
    * @see <a href="https://developer.android.com/topic/performance/graphics/load-bitmap"></a>
    */
-  public static Bitmap decodeSampledBitmapFromResource(
-      String filepath,
+  @WorkerThread
+  public static Bitmap decodeSampledBitmap(
+      ImageFile file,
+      ImageMetadata metadata,
       int reqWidth,
-      int reqHeight
+      int reqHeight,
+      Bitmap.Config config
   ) {
+    // The image is stored sideways, so the required size is too
+    final boolean transposed = isTransposed(metadata.orientation());
+
+    final Bitmap bitmap = decode(file::decode, metadata.width(), metadata.height(),
+        transposed ? reqHeight : reqWidth, transposed ? reqWidth : reqHeight, config);
+
+    return applyOrientation(bitmap, metadata.orientation());
+  }
+
+  /**
+   * Decode a thumbnail of the photo as {@link Bitmap.Config#RGB_565}. The thumbnail embedded in the
+   * EXIF data is used if there is one, otherwise the photo is down sampled.
+   *
+   * @param file The opened image file
+   * @param metadata The metadata of the file
+   * @param size The required width and height of the thumbnail
+   * @return Bitmap The thumbnail, or null if the photo cannot be decoded
+   */
+  @WorkerThread
+  public static Bitmap decodeThumbnail(ImageFile file, ImageMetadata metadata, int size) {
+    try {
+      final Bitmap thumbnail = decodeEmbeddedThumbnail(file, metadata, size);
+
+      if (thumbnail != null) {
+        return thumbnail;
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+
+    return decodeSampledBitmap(file, metadata, size, size, Bitmap.Config.RGB_565);
+  }
+
+  /**
+   * Decode a thumbnail of the photo, reading its metadata from the file. Used where the cached
+   * metadata is not available.
+   *
+   * @param filepath File path of image
+   * @param size The required width and height of the thumbnail
+   * @return Bitmap The thumbnail, or null if the photo cannot be decoded
+   */
+  @WorkerThread
+  public static Bitmap decodeThumbnail(String filepath, int size) {
+    try (ImageFile file = ImageFile.open(filepath)) {
+      return decodeThumbnail(file, file.readMetadata(), size);
+    } catch (IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  /**
+   * Decode the compressed thumbnail embedded in the EXIF data as {@link Bitmap.Config#RGB_565}
+   *
+   * @param file The opened image file
+   * @param metadata The metadata of the file
+   * @param size The required width and height of the thumbnail
+   * @return Bitmap The thumbnail, or null if the file has no thumbnail
+   * @throws IOException If the file cannot be read
+   */
+  @WorkerThread
+  public static Bitmap decodeEmbeddedThumbnail(ImageFile file, ImageMetadata metadata, int size)
+      throws IOException {
+    final byte[] data = file.readThumbnail(metadata);
+
+    if (data == null) {
+      return null;
+    }
+
+    final Bitmap thumbnail = decode(
+        options -> BitmapFactory.decodeByteArray(data, 0, data.length, options), 0, 0, size, size,
+        Bitmap.Config.RGB_565);
+
+    return applyOrientation(thumbnail, metadata.orientation());
+  }
 
-    // First decode with inJustDecodeBounds=true to check dimensions
+  /**
+   * Decode an image once with the sample size, the scaling and the pooled bitmap computed from its
+   * dimensions. The bounds are decoded first if the dimensions are not known.
+   *
+   * @param decoder Decodes the image with the given options
+   * @param width The width of the image, 0 if unknown
+   * @param height The height of the image, 0 if unknown
+   * @param reqWidth required width
+   * @param reqHeight required height
+   * @param config The config of the bitmap
+   * @return Bitmap the decoded bitmap, or null if the image cannot be decoded
+   */
+  private static Bitmap decode(Decoder decoder, int width, int height, int reqWidth,
+      int reqHeight, Bitmap.Config config) {
     final BitmapFactory.Options options = new BitmapFactory.Options();
-    options.inJustDecodeBounds = true;
 
     try {
-      Bitmap bitmap = BitmapFactory.decodeFile(filepath, options);
+      if (width > 0 && height > 0) {
+        options.outWidth = width;
+        options.outHeight = height;
+      } else {
+        // Decode with inJustDecodeBounds=true to check dimensions
+        options.inJustDecodeBounds = true;
+        decoder.decode(options);
+      }
+
+      if (options.outWidth <= 0 || options.outHeight <= 0) {
+        return null;
+      }
+
       options.inSampleSize = calculateInSampleSize(options, reqWidth, reqHeight);
+      options.inJustDecodeBounds = false;
+      options.inPreferredConfig = config;
+      options.inMutable = true;
+
+      // The sampled image can still be up to twice the required size, the rest is scaled down
+      // while decoding. Densities are only ratios here, the density of the result is reset below.
+      final int sampledWidth = divideRoundUp(options.outWidth, options.inSampleSize);
+      final int sampledHeight = divideRoundUp(options.outHeight, options.inSampleSize);
+      int decodedWidth = sampledWidth;
+      int decodedHeight = sampledHeight;
+
+      if (reqWidth > 0 && reqHeight > 0 && sampledWidth > reqWidth && sampledHeight > reqHeight) {
+        final boolean byWidth = (long) reqWidth * sampledHeight >= (long) reqHeight * sampledWidth;
+        options.inScaled = true;
+        options.inDensity = byWidth ? sampledWidth : sampledHeight;
+        options.inTargetDensity = byWidth ? reqWidth : reqHeight;
 
-      if (options.inSampleSize > 1) {
-        options.inJustDecodeBounds = false;
-        bitmap = BitmapFactory.decodeFile(filepath, options);
+        final float scale = (float) options.inTargetDensity / options.inDensity;
+        decodedWidth = (int) (sampledWidth * scale + 0.5f);
+        decodedHeight = (int) (sampledHeight * scale + 0.5f);
+      }
+
+      final int bytesPerPixel = config == Bitmap.Config.RGB_565 ? 2 : 4;
+      options.inBitmap = BitmapPool.getInstance().get(decodedWidth * decodedHeight * bytesPerPixel);
+
+      Bitmap bitmap;
+
+      try {
+        bitmap = decoder.decode(options);
+      } catch (IllegalArgumentException e) {
+        // The pooled bitmap cannot be reused for this image, decode into a new one instead
+        BitmapPool.getInstance().put(options.inBitmap);
+        options.inBitmap = null;
+        bitmap = decoder.decode(options);
+      }
+
+      if (bitmap != null) {
+        bitmap.setDensity(Resources.getSystem().getDisplayMetrics().densityDpi);
       }
 
       return bitmap;
@@ -82,4 +233,124 @@ public class BitmapHelper {
 
     return null;
   }
+
+  /**
+   * Rotate and flip a decoded bitmap to its EXIF orientation. The unrotated bitmap goes back to the
+   * pool.
+   *
+   * @param bitmap The decoded bitmap, may be null
+   * @param orientation One of the ExifInterface.ORIENTATION_* values
+   * @return Bitmap The bitmap the right way up
+   */
+  private static Bitmap applyOrientation(Bitmap bitmap, int orientation) {
+    if (bitmap == null) {
+      return null;
+    }
+
+    final Matrix matrix = new Matrix();
+
+    switch (orientation) {
+      case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+        matrix.setScale(-1, 1);
+        break;
+      case ExifInterface.ORIENTATION_ROTATE_180:
+        matrix.setRotate(180);
+        break;
+      case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+        matrix.setScale(1, -1);
+        break;
+      case ExifInterface.ORIENTATION_TRANSPOSE:
+        matrix.setRotate(90);
+        matrix.postScale(-1, 1);
+        break;
+      case ExifInterface.ORIENTATION_ROTATE_90:
+        matrix.setRotate(90);
+        break;
+      case ExifInterface.ORIENTATION_TRANSVERSE:
+        matrix.setRotate(-90);
+        matrix.postScale(-1, 1);
+        break;
+      case ExifInterface.ORIENTATION_ROTATE_270:
+        matrix.setRotate(-90);
+        break;
+      default:
+        return bitmap;
+    }
+
+    final Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(),
+        bitmap.getHeight(), matrix, true);
+
+    if (rotated != bitmap) {
+      BitmapPool.getInstance().put(bitmap);
+    }
+
+    return rotated;
+  }
+
+  /**
+   * Check whether an orientation swaps the width and the height of the image
+   *
+   * @param orientation One of the ExifInterface.ORIENTATION_* values
+   * @return boolean {@code true} if the image is stored sideways
+   */
+  private static boolean isTransposed(int orientation) {
+    return orientation == ExifInterface.ORIENTATION_ROTATE_90
+        || orientation == ExifInterface.ORIENTATION_ROTATE_270
+        || orientation == ExifInterface.ORIENTATION_TRANSPOSE
+        || orientation == ExifInterface.ORIENTATION_TRANSVERSE;
+  }
+
+  /**
+   * Compute the dominant colour of a bitmap as the average of its pixels. Meant for small bitmaps,
+   * such as an embedded thumbnail.
+   *
+   * @param bitmap The bitmap
+   * @return int The opaque average colour
+   */
+  public static int getDominantColor(Bitmap bitmap) {
+    final int width = bitmap.getWidth();
+    final int height = bitmap.getHeight();
+    final int[] pixels = new int[width * height];
+    bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+
+    long red = 0;
+    long green = 0;
+    long blue = 0;
+
+    for (int pixel : pixels) {
+      red += Color.red(pixel);
+      green += Color.green(pixel);
+      blue += Color.blue(pixel);
+    }
+
+    final int count = Math.max(pixels.length, 1);
+
+    return Color.rgb((int) (red / count), (int) (green / count), (int) (blue / count));
+  }
+
+  /**
+   * Divide and round up, as the decoders do for the sampled dimensions
+   *
+   * @param value The dividend
+   * @param divisor The divisor
+   * @return int The rounded up quotient
+   */
+  private static int divideRoundUp(int value, int divisor) {
+    return (value + divisor - 1) / divisor;
+  }
+
+  /**
+   * Decodes an image from a source with the given options
+   */
+  private interface Decoder {
+
+    /**
+     * Decode the image
+     *
+     * @param options The options of the decode
+     * @return Bitmap The decoded bitmap, or null if only the bounds are decoded or on failure
+     * @throws IOException If the image cannot be read
+     */
+    Bitmap decode(BitmapFactory.Options options) throws IOException;
+  }
 }
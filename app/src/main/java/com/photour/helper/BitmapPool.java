@@ -0,0 +1,239 @@
+package com.photour.helper;
+
+import android.graphics.Bitmap;
+import android.widget.ImageView;
+import androidx.annotation.NonNull;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * A pool of mutable bitmaps that are no longer shown, so that decodes can reuse their memory with
+ * {@link android.graphics.BitmapFactory.Options#inBitmap} instead of allocating a new bitmap.
+ * Bitmaps are bucketed by allocation size, a request is served by the smallest bitmap that is large
+ * enough. The pool is thread safe.
+ *
+ * <p>A bitmap that is still drawn by a view must never be pooled, the next decode into it would
+ * overwrite what the view shows. Views that show pooled bitmaps report them with
+ * {@link #setShown(ImageView, Bitmap)}, and decoded bitmaps on their way to a view are marked with
+ * {@link #markInFlight(Bitmap)}. Bitmaps given to {@link #release(Bitmap)} are only pooled once
+ * they are neither shown nor in flight.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class BitmapPool {
+
+  // A pooled bitmap is not handed out for a request smaller than this fraction of its size
+  private static final int MAX_SIZE_MULTIPLE = 2;
+
+  private static final BitmapPool instance = new BitmapPool(
+      (int) Math.min(Runtime.getRuntime().maxMemory() / 16, 8 * 1024 * 1024));
+
+  private final TreeMap<Integer, ArrayDeque<Bitmap>> buckets = new TreeMap<>();
+  private final int maxBytes;
+  private int currentBytes = 0;
+
+  // Bitmaps shown by views, keyed by view. A view that has been garbage collected shows nothing.
+  private final Map<ImageView, Bitmap> shownBitmaps = new WeakHashMap<>();
+  // Decoded bitmaps that have not been delivered yet
+  private final Set<Bitmap> inFlight = Collections.newSetFromMap(new WeakHashMap<>());
+  // Released bitmaps that are pooled once they are neither shown nor in flight
+  private final Set<Bitmap> releasedInUse = Collections.newSetFromMap(new WeakHashMap<>());
+
+  private long hits = 0;
+  private long misses = 0;
+  private long puts = 0;
+  private long rejects = 0;
+
+  /**
+   * Get the instance of {@link BitmapPool}
+   *
+   * @return BitmapPool The bitmap pool of the app
+   */
+  public static BitmapPool getInstance() {
+    return instance;
+  }
+
+  /**
+   * Constructor of {@link BitmapPool}
+   *
+   * @param maxBytes The maximum number of bytes held by the pool
+   */
+  private BitmapPool(int maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Add a bitmap that is no longer used to the pool. Immutable and recycled bitmaps cannot be
+   * reused and are rejected. The largest bitmaps are dropped when the pool is full.
+   *
+   * @param bitmap The bitmap, must not be shown anywhere
+   */
+  public synchronized void put(Bitmap bitmap) {
+    if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()
+        || bitmap.getAllocationByteCount() > maxBytes) {
+      rejects++;
+      return;
+    }
+
+    final int size = bitmap.getAllocationByteCount();
+    ArrayDeque<Bitmap> bucket = buckets.get(size);
+
+    if (bucket == null) {
+      bucket = new ArrayDeque<>();
+      buckets.put(size, bucket);
+    }
+
+    bucket.push(bitmap);
+    currentBytes += size;
+    puts++;
+
+    while (currentBytes > maxBytes) {
+      final Map.Entry<Integer, ArrayDeque<Bitmap>> largest = buckets.lastEntry();
+      largest.getValue().pollLast();
+      currentBytes -= largest.getKey();
+
+      if (largest.getValue().isEmpty()) {
+        buckets.remove(largest.getKey());
+      }
+    }
+  }
+
+  /**
+   * Give back a bitmap that is no longer needed by its owner, such as a thumbnail evicted from the
+   * memory cache. The bitmap is pooled now if it is not in use, otherwise once it has been
+   * delivered and the last view showing it is given another bitmap.
+   *
+   * @param bitmap The bitmap
+   */
+  public synchronized void release(Bitmap bitmap) {
+    if (isInUse(bitmap)) {
+      releasedInUse.add(bitmap);
+    } else {
+      put(bitmap);
+    }
+  }
+
+  /**
+   * Mark a decoded bitmap as on its way to a view. Must be called before the bitmap can be
+   * released, such as before it is put in the memory cache, so that it is not pooled before the
+   * view shows it.
+   *
+   * @param bitmap The decoded bitmap
+   */
+  public synchronized void markInFlight(Bitmap bitmap) {
+    inFlight.add(bitmap);
+  }
+
+  /**
+   * Mark a bitmap as delivered, after the views that wanted it have been given it with
+   * {@link #setShown(ImageView, Bitmap)}
+   *
+   * @param bitmap The delivered bitmap, may be null
+   */
+  public synchronized void endInFlight(Bitmap bitmap) {
+    if (bitmap != null && inFlight.remove(bitmap)) {
+      poolIfReleased(bitmap);
+    }
+  }
+
+  /**
+   * Record the bitmap a view shows. Must be called whenever a view that may show a released
+   * bitmap is given another image, or is recycled.
+   *
+   * @param imageView The view
+   * @param bitmap The bitmap the view shows now, or null if it shows no released bitmap
+   */
+  public synchronized void setShown(ImageView imageView, Bitmap bitmap) {
+    final Bitmap previous = bitmap != null
+        ? shownBitmaps.put(imageView, bitmap)
+        : shownBitmaps.remove(imageView);
+
+    // The view might have been the last one showing a released bitmap
+    if (previous != null && previous != bitmap) {
+      poolIfReleased(previous);
+    }
+  }
+
+  /**
+   * Pool a released bitmap once it is no longer in use
+   *
+   * @param bitmap The bitmap
+   */
+  private void poolIfReleased(Bitmap bitmap) {
+    if (releasedInUse.contains(bitmap) && !isInUse(bitmap)) {
+      releasedInUse.remove(bitmap);
+      put(bitmap);
+    }
+  }
+
+  /**
+   * Check whether a bitmap is shown by a view or on its way to one
+   *
+   * @param bitmap The bitmap
+   * @return boolean {@code true} if the bitmap must not be pooled
+   */
+  private boolean isInUse(Bitmap bitmap) {
+    return inFlight.contains(bitmap) || shownBitmaps.containsValue(bitmap);
+  }
+
+  /**
+   * Take a bitmap large enough to decode into
+   *
+   * @param byteCount The number of bytes of the bitmap to be decoded
+   * @return Bitmap A bitmap that can be used as {@code inBitmap}, or null if there is none
+   */
+  public synchronized Bitmap get(int byteCount) {
+    final Map.Entry<Integer, ArrayDeque<Bitmap>> entry = buckets.ceilingEntry(byteCount);
+
+    if (entry == null || entry.getKey() / MAX_SIZE_MULTIPLE > byteCount) {
+      misses++;
+      return null;
+    }
+
+    final Bitmap bitmap = entry.getValue().pop();
+    currentBytes -= entry.getKey();
+
+    if (entry.getValue().isEmpty()) {
+      buckets.remove(entry.getKey());
+    }
+
+    hits++;
+    return bitmap;
+  }
+
+  /**
+   * Drop every bitmap of the pool
+   */
+  public synchronized void clear() {
+    buckets.clear();
+    currentBytes = 0;
+  }
+
+  /**
+   * Get the fraction of requests that have been served by the pool
+   *
+   * @return double The hit rate, between 0 and 1
+   */
+  public synchronized double getHitRate() {
+    final long requests = hits + misses;
+    return requests == 0 ? 0 : (double) hits / requests;
+  }
+
+  /**
+   * Return the counters of this pool
+   *
+   * @return String The counters of this pool
+   */
+  @NonNull
+  @Override
+  public synchronized String toString() {
+    return String.format(Locale.ROOT,
+        "BitmapPool: size=%d/%d hits=%d misses=%d hitRate=%.2f puts=%d rejects=%d", currentBytes,
+        maxBytes, hits, misses, getHitRate(), puts, rejects);
+  }
+}
@@ -6,9 +6,14 @@ import android.graphics.Bitmap;
 import android.os.AsyncTask;
 import android.os.Environment;
 import android.util.LruCache;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.photour.database.DiskLruImageCache;
 import com.photour.ui.photos.PhotosFragment;
 import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 
 /**
  * A helper class for managing cache for photos
@@ -17,11 +22,18 @@ import java.io.File;
  */
 public class CacheHelper {
 
-  private DiskLruImageCache diskLruCache;
-  private final Object diskCacheLock;
-  private boolean diskCacheStarting;
+  // DiskLruCache is thread safe, so reads only wait for the cache to be opened
+  private volatile DiskLruImageCache diskLruCache;
+  private final CountDownLatch diskCacheReady = new CountDownLatch(1);
   private Context context;
 
+  // Thumbnails waiting to be written, in order, by the write-behind queue. Shared by every
+  // instance like the memory cache retained in PhotosFragment, so that an eviction sees the writes
+  // queued by any instance.
+  private static final Map<String, Bitmap> pendingWrites = new ConcurrentHashMap<>();
+  private static final Executor diskWriter = MoreExecutors
+      .newSequentialExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+
   private static final int DISK_CACHE_SIZE = 1024 * 1024 * 10; // 10MB
   private static final String DISK_CACHE_SUBDIR = "thumbnails";
 
@@ -36,9 +48,7 @@ public class CacheHelper {
    */
   public CacheHelper(Context context) {
     // Sets up variables
-    diskCacheLock = new Object();
-    diskCacheStarting = true;
-    this.context = context;
+    this.context = context.getApplicationContext();
 
     final int maxMemory = (int) (Runtime.getRuntime().maxMemory() / 1024);
     final int cacheSize = maxMemory / 4;
@@ -46,12 +56,7 @@ public class CacheHelper {
 
     memoryCache = PhotosFragment.mRetainedCache;
     if (memoryCache == null) {
-      memoryCache = new LruCache<String, Bitmap>(cacheSize) {
-        @Override
-        protected int sizeOf(String key, Bitmap bitmap) {
-          return bitmap.getByteCount() / 1024;
-        }
-      };
+      memoryCache = new ThumbnailMemoryCache(cacheSize);
       PhotosFragment.mRetainedCache = memoryCache;
     }
 
@@ -60,7 +65,8 @@ public class CacheHelper {
   }
 
   /**
-   * Function to add bitmap to memory and disk cache
+   * Function to add bitmap to memory and disk cache. The bitmap is written to disk in the
+   * background, so the caller does not wait for it to be compressed.
    *
    * @param key Key to identify bitmap
    * @param bitmap bitmap object itself
@@ -70,11 +76,22 @@ public class CacheHelper {
       memoryCache.put(key, bitmap);
     }
 
-    synchronized (diskCacheLock) {
-      if (diskLruCache != null && diskLruCache.getBitmap(key) == null) {
-        diskLruCache.put(key, bitmap);
-      }
+    if (pendingWrites.putIfAbsent(key, bitmap) != null) {
+      return;
     }
+
+    diskWriter.execute(() -> {
+      try {
+        // Presence is checked with the journal, without decoding the cached bitmap
+        final DiskLruImageCache diskCache = awaitDiskCache();
+
+        if (diskCache != null && !diskCache.containsKey(key)) {
+          diskCache.put(key, bitmap);
+        }
+      } finally {
+        pendingWrites.remove(key);
+      }
+    });
   }
 
   /**
@@ -88,25 +105,64 @@ public class CacheHelper {
   }
 
   /**
-   * Function to get bitmap from disk cache. Runs in async due to slow speed of disk cache.
+   * Function to get bitmap from disk cache. Runs in async due to slow speed of disk cache. Reads
+   * of different keys run concurrently.
    *
    * @param key Key to identify bitmap
    * @return {@link Bitmap} Returns null if no bitmap is found in cache
    */
   public Bitmap getBitmapFromDiskCache(String key) {
-    synchronized (diskCacheLock) {
-      // Wait while disk cache is started from background thread
-      while (diskCacheStarting) {
-        try {
-          diskCacheLock.wait();
-        } catch (InterruptedException ignored) {
-        }
-      }
-      if (diskLruCache != null) {
-        return diskLruCache.getBitmap(key);
+    // The bitmap may not have been written yet
+    final Bitmap pending = pendingWrites.get(key);
+
+    if (pending != null) {
+      return pending;
+    }
+
+    final DiskLruImageCache diskCache = awaitDiskCache();
+
+    return diskCache != null ? diskCache.getBitmap(key) : null;
+  }
+
+  /**
+   * Wait while disk cache is started from background thread
+   *
+   * @return DiskLruImageCache The disk cache, or null if the thread has been interrupted
+   */
+  private DiskLruImageCache awaitDiskCache() {
+    try {
+      diskCacheReady.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+
+    return diskLruCache;
+  }
+
+  /**
+   * The memory cache of thumbnails. It outlives the activity, so it only refers to static state and
+   * never to an instance of {@link CacheHelper}.
+   */
+  private static class ThumbnailMemoryCache extends LruCache<String, Bitmap> {
+
+    ThumbnailMemoryCache(int maxSize) {
+      super(maxSize);
+    }
+
+    @Override
+    protected int sizeOf(String key, Bitmap bitmap) {
+      return bitmap.getByteCount() / 1024;
+    }
+
+    @Override
+    protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+      // An evicted thumbnail may still be shown, the pool only reuses it once no view shows it. A
+      // thumbnail still waiting to be written to disk must not be reused yet.
+      if (evicted && !pendingWrites.containsKey(key)) {
+        BitmapPool.getInstance().release(oldValue);
       }
     }
-    return null;
   }
 
   /**
@@ -117,12 +173,11 @@ public class CacheHelper {
 
     @Override
     protected Void doInBackground(String... params) {
-      synchronized (diskCacheLock) {
+      try {
         String cacheDir = params[0];
         diskLruCache = new DiskLruImageCache(context, cacheDir, DISK_CACHE_SIZE);
-
-        diskCacheStarting = false; // Finished initialization
-        diskCacheLock.notifyAll(); // Wake any waiting threads
+      } finally {
+        diskCacheReady.countDown(); // Wake any waiting threads
       }
       return null;
     }
@@ -1,13 +1,19 @@
 package com.photour.helper;
 
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.photour.database.AppDatabase;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 
 
 /**
- * A helper class for {@link Callable} and {@link Future}
+ * A helper class for {@link Callable} and {@link ListenableFuture}. Database tasks are never waited
+ * on, the result is delivered to a {@link ResultListener} on the main thread instead.
  *
  * @author Zer Jun Eng, Jia Hua Ng
  */
@@ -17,54 +23,79 @@ public class FutureHelper {
    * Check whether @Insert, @Update or @Delete task has completed successfully
    *
    * @param task The task to be executed asynchronously
-   * @return boolean {@code true} if the task has completed successfully, {@code false} otherwise
+   * @return ListenableFuture<Boolean> {@code true} if the task has completed successfully, {@code
+   * false} otherwise
    */
-  public static boolean rowOperationFuture(Callable<Integer> task) {
-    Future<Integer> future = AppDatabase.databaseExecutor.submit(task);
+  public static ListenableFuture<Boolean> rowOperationFuture(Callable<Integer> task) {
+    ListenableFuture<Boolean> future = Futures.transform(
+        AppDatabase.writeExecutor.submit(task), rows -> rows != null && rows == 1,
+        MoreExecutors.directExecutor());
 
-    try {
-      return future.get() == 1;
-    } catch (ExecutionException | InterruptedException e) {
+    return Futures.catching(future, Exception.class, e -> {
       e.printStackTrace();
-    }
+      return false;
+    }, MoreExecutors.directExecutor());
+  }
 
-    return false;
+  /**
+   * Retrieve data of generic type from database on the reader pool
+   *
+   * @param task The task to be executed asynchronously
+   * @param <T> the result type of method {@code call}
+   * @return ListenableFuture<T> the future of the computed result
+   */
+  public static <T> ListenableFuture<T> readFuture(Callable<T> task) {
+    return AppDatabase.readExecutor.submit(task);
   }
 
   /**
-   * Retrieve data of generic type from database
+   * Write to the database on the single writer thread, returning a result of generic type
    *
    * @param task The task to be executed asynchronously
    * @param <T> the result type of method {@code call}
-   * @return T the computed result
+   * @return ListenableFuture<T> the future of the computed result
    */
-  public static <T> T genericFuture(Callable<T> task) {
-    Future<T> future = AppDatabase.databaseExecutor.submit(task);
+  public static <T> ListenableFuture<T> writeFuture(Callable<T> task) {
+    return AppDatabase.writeExecutor.submit(task);
+  }
 
-    try {
-      return future.get();
-    } catch (ExecutionException | InterruptedException e) {
-      e.printStackTrace();
-    }
+  /**
+   * Deliver the result of a future to the listener on the main thread. The listener receives
+   * {@code null} if the task has failed.
+   *
+   * @param future The future of the task
+   * @param context Any context, used to get the main thread executor
+   * @param listener The listener to be called with the result
+   * @param <T> the result type of the future
+   */
+  public static <T> void addCallback(ListenableFuture<T> future, Context context,
+      ResultListener<T> listener) {
+    Futures.addCallback(future, new FutureCallback<T>() {
+      @Override
+      public void onSuccess(T result) {
+        listener.onResult(result);
+      }
 
-    return null;
+      @Override
+      public void onFailure(@NonNull Throwable t) {
+        t.printStackTrace();
+        listener.onResult(null);
+      }
+    }, ContextCompat.getMainExecutor(context));
   }
 
   /**
-   * Retrieve data of type {@link String} from database
+   * Interface for the result of an asynchronous task
    *
-   * @param task The task to be executed asynchronously
-   * @return String the computed result
+   * @param <T> the result type of the task
    */
-  public static String stringFuture(Callable<String> task) {
-    Future<String> future = AppDatabase.databaseExecutor.submit(task);
-
-    try {
-      return future.get();
-    } catch (ExecutionException | InterruptedException e) {
-      e.printStackTrace();
-    }
+  public interface ResultListener<T> {
 
-    return "";
+    /**
+     * Called on the main thread when the task has completed
+     *
+     * @param result The result of the task
+     */
+    void onResult(T result);
   }
 }
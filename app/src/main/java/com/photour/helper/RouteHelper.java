@@ -0,0 +1,191 @@
+package com.photour.helper;
+
+import com.google.android.libraries.maps.model.LatLng;
+import com.google.android.libraries.maps.model.LatLngBounds;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A helper class for simplifying visit routes with the Douglas-Peucker algorithm. Points that are
+ * closer than the tolerance to the line between their neighbours are dropped, so straight stretches
+ * of a route are reduced to their end points.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class RouteHelper {
+
+  // Tolerance of the route stored with a visit, below the accuracy of a GPS fix
+  public static final double STORED_TOLERANCE_METRES = 5;
+
+  private static final double EARTH_RADIUS_METRES = 6371009;
+  private static final double METRES_PER_PIXEL_AT_ZOOM_0 = 156543.03392;
+  private static final double TILE_SIZE = 256;
+  private static final float MAX_ZOOM = 21;
+
+  /**
+   * Get the tolerance at which a simplified route is indistinguishable from the full route, which
+   * is the size of a pixel at the given zoom level
+   *
+   * @param zoom The zoom level of the map
+   * @param latitude The latitude of the route, pixels cover fewer metres towards the poles
+   * @return double The tolerance in metres
+   */
+  public static double toleranceAtZoom(float zoom, double latitude) {
+    return METRES_PER_PIXEL_AT_ZOOM_0 * Math.cos(Math.toRadians(latitude)) / Math.pow(2, zoom);
+  }
+
+  /**
+   * Get the zoom level at which a camera fitted to a bounding box ends up, so that a route can be
+   * simplified before the camera has moved
+   *
+   * @param bounds The bounding box
+   * @param width The width of the map in density-independent pixels, without the padding
+   * @param height The height of the map in density-independent pixels, without the padding
+   * @return float The zoom level, or the maximum zoom level if the size of the map is unknown
+   */
+  public static float zoomToFit(LatLngBounds bounds, float width, float height) {
+    double lngFraction = (bounds.northeast.longitude - bounds.southwest.longitude) / 360;
+
+    // The box crosses the 180th meridian
+    if (lngFraction < 0) {
+      lngFraction += 1;
+    }
+
+    final double latFraction = (mercatorY(bounds.northeast.latitude)
+        - mercatorY(bounds.southwest.latitude)) / (2 * Math.PI);
+
+    if (width <= 0 || height <= 0) {
+      return MAX_ZOOM;
+    }
+
+    final double zoom = Math.min(log2(width / TILE_SIZE / lngFraction),
+        log2(height / TILE_SIZE / latFraction));
+
+    return (float) Math.max(0, Math.min(MAX_ZOOM, zoom));
+  }
+
+  /**
+   * Project a latitude with the Mercator projection of the map
+   *
+   * @param latitude The latitude
+   * @return double The projected y, between -PI and PI on the map
+   */
+  private static double mercatorY(double latitude) {
+    final double sin = Math.sin(Math.toRadians(latitude));
+    final double y = Math.log((1 + sin) / (1 - sin)) / 2;
+
+    return Math.max(-Math.PI, Math.min(Math.PI, y));
+  }
+
+  /**
+   * Get the base 2 logarithm of a number
+   *
+   * @param value The number
+   * @return double The logarithm, infinite if the number is infinite
+   */
+  private static double log2(double value) {
+    return Math.log(value) / Math.log(2);
+  }
+
+  /**
+   * Simplify a route. The first and the last points are always kept.
+   *
+   * @param route The points of the route
+   * @param tolerance The largest distance in metres a dropped point may be from the simplified
+   * route
+   * @return ArrayList<LatLng> The points of the simplified route, a copy of the route if it cannot
+   * be simplified
+   */
+  public static ArrayList<LatLng> simplify(List<LatLng> route, double tolerance) {
+    final int size = route.size();
+
+    if (size < 3 || tolerance <= 0) {
+      return new ArrayList<>(route);
+    }
+
+    // Routes span a few kilometres, so an equirectangular projection around the first point is
+    // accurate enough to measure distances in metres
+    final LatLng origin = route.get(0);
+    final double cosLat = Math.cos(Math.toRadians(origin.latitude));
+    final double[] x = new double[size];
+    final double[] y = new double[size];
+
+    for (int i = 0; i < size; i++) {
+      final LatLng point = route.get(i);
+      x[i] = Math.toRadians(point.longitude - origin.longitude) * cosLat * EARTH_RADIUS_METRES;
+      y[i] = Math.toRadians(point.latitude - origin.latitude) * EARTH_RADIUS_METRES;
+    }
+
+    final double toleranceSquared = tolerance * tolerance;
+    final boolean[] keep = new boolean[size];
+    keep[0] = true;
+    keep[size - 1] = true;
+
+    // Ranges still to be simplified, as pairs of indices. Iterative, so that a long route cannot
+    // overflow the call stack.
+    final int[] ranges = new int[size * 2];
+    int top = 0;
+    ranges[top++] = 0;
+    ranges[top++] = size - 1;
+
+    while (top > 0) {
+      final int end = ranges[--top];
+      final int start = ranges[--top];
+      double maxDistance = 0;
+      int farthest = -1;
+
+      for (int i = start + 1; i < end; i++) {
+        final double distance = segmentDistanceSquared(x[i], y[i], x[start], y[start], x[end],
+            y[end]);
+
+        if (distance > maxDistance) {
+          maxDistance = distance;
+          farthest = i;
+        }
+      }
+
+      if (maxDistance > toleranceSquared) {
+        keep[farthest] = true;
+        ranges[top++] = start;
+        ranges[top++] = farthest;
+        ranges[top++] = farthest;
+        ranges[top++] = end;
+      }
+    }
+
+    final ArrayList<LatLng> simplified = new ArrayList<>();
+
+    for (int i = 0; i < size; i++) {
+      if (keep[i]) {
+        simplified.add(route.get(i));
+      }
+    }
+
+    return simplified;
+  }
+
+  /**
+   * Get the squared distance from a point to a segment
+   *
+   * @param px The x of the point
+   * @param py The y of the point
+   * @param ax The x of the start of the segment
+   * @param ay The y of the start of the segment
+   * @param bx The x of the end of the segment
+   * @param by The y of the end of the segment
+   * @return double The squared distance
+   */
+  private static double segmentDistanceSquared(double px, double py, double ax, double ay,
+      double bx, double by) {
+    final double dx = bx - ax;
+    final double dy = by - ay;
+    final double lengthSquared = dx * dx + dy * dy;
+    double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+    t = Math.max(0, Math.min(1, t));
+
+    final double ex = px - (ax + t * dx);
+    final double ey = py - (ay + t * dy);
+
+    return ex * ex + ey * ey;
+  }
+}
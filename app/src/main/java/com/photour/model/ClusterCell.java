@@ -0,0 +1,29 @@
+package com.photour.model;
+
+import com.google.android.libraries.maps.model.LatLng;
+
+/**
+ * Model for a cell of the photo cluster pyramid as drawn on the map, positioned at the centroid of
+ * its photos
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class ClusterCell {
+
+  public int cellX;
+  public int cellY;
+  public int photoCount;
+  public double lat;
+  public double lng;
+  public Integer representativePhotoId;
+  public String file_path;
+
+  /**
+   * Get the centroid of the photos in the cell
+   *
+   * @return LatLng The centroid of the photos
+   */
+  public LatLng getPosition() {
+    return new LatLng(lat, lng);
+  }
+}
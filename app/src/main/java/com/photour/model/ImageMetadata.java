@@ -0,0 +1,97 @@
+package com.photour.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+import com.google.auto.value.AutoValue;
+import com.google.auto.value.AutoValue.CopyAnnotations;
+
+/**
+ * Entity class for the metadata of an image file, read once from the file and cached until the
+ * file is modified
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ * @see com.photour.database.ImageMetadataRepository
+ */
+@AutoValue
+@Entity(tableName = "image_metadata")
+public abstract class ImageMetadata {
+
+  @NonNull
+  @CopyAnnotations
+  @PrimaryKey
+  @ColumnInfo(name = "file_path")
+  public abstract String filePath();
+
+  // Last modified time of the file when the metadata was read
+  @CopyAnnotations
+  @ColumnInfo(name = "modified")
+  public abstract long modified();
+
+  @CopyAnnotations
+  @ColumnInfo(name = "fileSize")
+  public abstract long fileSize();
+
+  @CopyAnnotations
+  @ColumnInfo(name = "width")
+  public abstract int width();
+
+  @CopyAnnotations
+  @ColumnInfo(name = "height")
+  public abstract int height();
+
+  // One of the ExifInterface.ORIENTATION_* values
+  @CopyAnnotations
+  @ColumnInfo(name = "orientation")
+  public abstract int orientation();
+
+  // Position of the compressed EXIF thumbnail in the file, 0 if there is none
+  @CopyAnnotations
+  @ColumnInfo(name = "thumbnailOffset")
+  public abstract long thumbnailOffset();
+
+  @CopyAnnotations
+  @ColumnInfo(name = "thumbnailLength")
+  public abstract int thumbnailLength();
+
+  // Average colour of the image, shown before the thumbnail is decoded. 0 if unknown.
+  @CopyAnnotations
+  @ColumnInfo(name = "dominantColor")
+  public abstract int dominantColor();
+
+  public static ImageMetadata create(
+      String filePath,
+      long modified,
+      long fileSize,
+      int width,
+      int height,
+      int orientation,
+      long thumbnailOffset,
+      int thumbnailLength,
+      int dominantColor
+  ) {
+    return new AutoValue_ImageMetadata(filePath, modified, fileSize, width, height, orientation,
+        thumbnailOffset, thumbnailLength, dominantColor);
+  }
+
+  /**
+   * Check whether the metadata was read from the current version of the file
+   *
+   * @param modified The last modified time of the file
+   * @param fileSize The size of the file in bytes
+   * @return boolean {@code true} if the file has not changed since the metadata was read
+   */
+  public boolean isCurrent(long modified, long fileSize) {
+    return modified() == modified && fileSize() == fileSize;
+  }
+
+  /**
+   * Check whether the file has a compressed EXIF thumbnail
+   *
+   * @return boolean {@code true} if the thumbnail can be read from the file
+   */
+  public boolean hasThumbnail() {
+    return thumbnailOffset() > 0 && thumbnailLength() > 0;
+  }
+}
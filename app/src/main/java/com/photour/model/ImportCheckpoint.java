@@ -0,0 +1,51 @@
+package com.photour.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+import com.google.auto.value.AutoValue;
+import com.google.auto.value.AutoValue.CopyAnnotations;
+
+/**
+ * Entity class for the progress of the media importer in a directory. Files are imported in order
+ * of (modified, file path), so every file up to the checkpoint has already been imported.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ * @see com.photour.service.MediaImportService
+ */
+@AutoValue
+@Entity(tableName = "import_checkpoints")
+public abstract class ImportCheckpoint {
+
+  @NonNull
+  @CopyAnnotations
+  @PrimaryKey
+  @ColumnInfo(name = "root_path")
+  public abstract String rootPath();
+
+  // Last modified time of the last imported file
+  @CopyAnnotations
+  @ColumnInfo(name = "modified")
+  public abstract long modified();
+
+  @NonNull
+  @CopyAnnotations
+  @ColumnInfo(name = "file_path")
+  public abstract String filePath();
+
+  public static ImportCheckpoint create(String rootPath, long modified, String filePath) {
+    return new AutoValue_ImportCheckpoint(rootPath, modified, filePath);
+  }
+
+  /**
+   * Check whether a file comes after the checkpoint, and so has not been imported yet
+   *
+   * @param modified The last modified time of the file
+   * @param filePath The file path of the file
+   * @return boolean {@code true} if the file has not been imported
+   */
+  public boolean isBefore(long modified, String filePath) {
+    return modified > modified() || (modified == modified() && filePath.compareTo(filePath()) > 0);
+  }
+}
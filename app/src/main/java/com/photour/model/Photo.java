@@ -2,34 +2,34 @@ package com.photour.model;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.os.AsyncTask;
+import android.graphics.Bitmap.Config;
 import android.os.Parcelable;
 import android.view.View;
 import android.widget.ImageView;
 import androidx.annotation.Nullable;
 import androidx.databinding.BindingAdapter;
-import androidx.exifinterface.media.ExifInterface;
 import androidx.navigation.Navigation;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Index;
 import androidx.room.PrimaryKey;
-import androidx.room.TypeConverters;
 import com.google.android.libraries.maps.model.LatLng;
 import com.google.auto.value.AutoValue;
 import com.google.auto.value.AutoValue.CopyAnnotations;
 import com.google.maps.android.clustering.ClusterItem;
 import com.photour.MainActivity;
-import com.photour.R;
-import com.photour.converter.LatLngConverter;
+import com.photour.database.ImageMetadataRepository;
+import com.photour.helper.BitmapHelper;
+import com.photour.helper.BitmapPool;
+import com.photour.helper.CacheHelper;
 import com.photour.helper.DateHelper;
 import com.photour.helper.StringHelper;
-import com.photour.task.AsyncDrawable;
-import com.photour.task.BitmapRawTask;
-import com.photour.task.BitmapThumbnailTask;
+import com.photour.task.ImageFile;
+import com.photour.task.ImageLoader;
+import com.photour.task.ImageLoader.Priority;
 import com.photour.ui.photos.PhotosFragmentDirections;
+import java.io.IOException;
 import java.util.Date;
 import java.util.Objects;
 
@@ -40,7 +40,7 @@ import java.util.Objects;
  */
 @AutoValue
 @Entity(tableName = "photos",
-    indices = @Index("visitId"),
+    indices = {@Index("visitId"), @Index({"date", "id"}), @Index({"lat", "lng"})},
     foreignKeys = @ForeignKey(
         entity = Visit.class,
         parentColumns = "id",
@@ -48,9 +48,17 @@ import java.util.Objects;
         onDelete = ForeignKey.CASCADE
     )
 )
-@TypeConverters({LatLngConverter.class})
 public abstract class Photo implements Parcelable, ClusterItem {
 
+  // Keys and sizes of the bitmaps decoded by ImageLoader
+  private static final String THUMBNAIL_KEY = "thumbnail:";
+  private static final String RAW_KEY = "raw:";
+  private static final String PREVIEW_KEY = "preview:";
+  private static final String COLOR_KEY = "color:";
+  private static final int THUMBNAIL_SIZE = 100;
+  private static final int RAW_WIDTH = 720;
+  private static final int RAW_HEIGHT = 960;
+
   @CopyAnnotations
   @PrimaryKey(autoGenerate = true)
   public abstract int id();
@@ -68,23 +76,39 @@ public abstract class Photo implements Parcelable, ClusterItem {
   public abstract Date date();
 
   @CopyAnnotations
-  @ColumnInfo(name = "latLng")
-  public abstract LatLng latLng();
+  @ColumnInfo(name = "lat")
+  public abstract double lat();
+
+  @CopyAnnotations
+  @ColumnInfo(name = "lng")
+  public abstract double lng();
 
   @Nullable
   @CopyAnnotations
-  @ColumnInfo(name = "sensors")
-  public abstract float[] sensors();
+  @ColumnInfo(name = "temperature")
+  public abstract Float ambientTemperature();
+
+  @Nullable
+  @CopyAnnotations
+  @ColumnInfo(name = "pressure")
+  public abstract Float barometricPressure();
 
   public static Photo create(
       int id,
       int visitId,
       String filePath,
       Date date,
-      LatLng latLng,
-      float[] sensors
+      double lat,
+      double lng,
+      Float ambientTemperature,
+      Float barometricPressure
   ) {
-    return new AutoValue_Photo(id, visitId, filePath, date, latLng, sensors);
+    return new AutoValue_Photo(id, visitId, filePath, date, lat, lng, ambientTemperature,
+        barometricPressure);
+  }
+
+  public LatLng latLng() {
+    return new LatLng(lat(), lng());
   }
 
   @Override
@@ -103,26 +127,26 @@ public abstract class Photo implements Parcelable, ClusterItem {
   }
 
   public boolean hasSensorsReading() {
-    return sensors() != null;
+    return ambientTemperature() != null || barometricPressure() != null;
   }
 
   public float temperatureCelsius() {
-    return sensors() == null ? 0 : Objects.requireNonNull(sensors())[0];
+    return ambientTemperature() == null ? 0 : Objects.requireNonNull(ambientTemperature());
   }
 
   public float temperatureFahrenheit() {
-    if (sensors() == null) {
+    if (ambientTemperature() == null) {
       return 0;
     }
 
-    float value = (Objects.requireNonNull(sensors())[0] * 1.8f + 32) * 10;
+    float value = (Objects.requireNonNull(ambientTemperature()) * 1.8f + 32) * 10;
 
     // Round to 1 decimal
     return ((float) ((int) ((value - (int) value) >= 0.5f ? value + 1 : value))) / 10;
   }
 
   public float pressure() {
-    return sensors() == null ? 0 : Objects.requireNonNull(sensors())[1];
+    return barometricPressure() == null ? 0 : Objects.requireNonNull(barometricPressure());
   }
 
   /**
@@ -151,22 +175,97 @@ public abstract class Photo implements Parcelable, ClusterItem {
   @BindingAdapter({"thumbnailPhoto", "photoId"})
   public static void loadThumbnailPhoto(ImageView imageView, String filepath, int photoId) {
     final Context context = imageView.getContext();
+    final CacheHelper cacheHelper = ((MainActivity) context).cacheHelper;
+    final ImageLoader imageLoader = ImageLoader.getInstance();
     final String id = String.valueOf(photoId);
-    Bitmap bitmap = ((MainActivity) context).cacheHelper.getBitmapFromMemCache(id);
+    final Bitmap bitmap = cacheHelper.getBitmapFromMemCache(id);
+
     if (bitmap != null) {
+      imageLoader.cancel(imageView);
       imageView.setImageBitmap(bitmap);
+      BitmapPool.getInstance().setShown(imageView, bitmap);
       return;
     }
 
-    if (BitmapThumbnailTask.shouldCancelTask(filepath, imageView)) {
-      BitmapThumbnailTask task = new BitmapThumbnailTask(context, imageView);
-      Bitmap placeholder = BitmapFactory
-          .decodeResource(context.getResources(), R.drawable.placeholder);
-      final AsyncDrawable asyncDrawable =
-          new AsyncDrawable(context.getResources(), placeholder, task);
-      imageView.setImageDrawable(asyncDrawable);
-      task.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, filepath, id);
+    // The dominant colour is shown first if the photo has been indexed
+    final Context appContext = context.getApplicationContext();
+    imageLoader.loadInto(imageView, THUMBNAIL_KEY + id, Priority.THUMBNAIL,
+        imageLoader.getPlaceholder(context.getResources()),
+        () -> decodeThumbnail(appContext, cacheHelper, filepath, id),
+        COLOR_KEY + id, () -> decodeDominantColor(appContext, filepath));
+  }
+
+  /**
+   * Create a single pixel bitmap of the dominant colour of a photo from its cached metadata,
+   * without opening the photo file. Runs on a decoder thread.
+   *
+   * @param context The application context
+   * @param filepath filepath of image
+   * @return Bitmap The dominant colour, or null if the photo has not been indexed
+   */
+  private static Bitmap decodeDominantColor(Context context, String filepath) {
+    final ImageMetadata metadata = new ImageMetadataRepository(context)
+        .getCachedMetadata(filepath);
+
+    if (metadata == null || metadata.dominantColor() == 0) {
+      return null;
+    }
+
+    return Bitmap.createBitmap(new int[]{metadata.dominantColor()}, 1, 1, Config.ARGB_8888);
+  }
+
+  /**
+   * Decode the thumbnail of a photo ahead of time, so that it is in the memory cache by the time it
+   * is shown. Prefetches run after every other decode.
+   *
+   * @param context The {@link MainActivity}
+   * @param photo The photo to be shown soon
+   */
+  public static void prefetchThumbnail(Context context, Photo photo) {
+    final CacheHelper cacheHelper = ((MainActivity) context).cacheHelper;
+    final Context appContext = context.getApplicationContext();
+    final String id = String.valueOf(photo.id());
+
+    if (cacheHelper.getBitmapFromMemCache(id) != null) {
+      return;
     }
+
+    ImageLoader.getInstance().load(THUMBNAIL_KEY + id, Priority.PREFETCH,
+        () -> decodeThumbnail(appContext, cacheHelper, photo.filePath(), id), bitmap -> {
+          // Nothing to show, the thumbnail is in the cache by now
+        });
+  }
+
+  /**
+   * Decode the thumbnail of a photo and save it in the cache. Runs on a decoder thread.
+   *
+   * @param context The application context
+   * @param cacheHelper The cache of the thumbnails
+   * @param filepath filepath of image
+   * @param id The ID of the photo, used as the key of the cache
+   * @return Bitmap The thumbnail, or null if the photo cannot be decoded
+   */
+  private static Bitmap decodeThumbnail(Context context, CacheHelper cacheHelper, String filepath,
+      String id) {
+    Bitmap bitmap = cacheHelper.getBitmapFromDiskCache(id);
+
+    if (bitmap == null) {
+      try (ImageFile file = ImageFile.open(filepath)) {
+        final ImageMetadata metadata = new ImageMetadataRepository(context).getMetadata(file);
+        bitmap = BitmapHelper.decodeThumbnail(file, metadata, THUMBNAIL_SIZE);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+
+    // Save into cache. The thumbnail could be evicted before the view shows it, so it is kept out
+    // of the pool until ImageLoader has delivered it.
+    if (bitmap != null) {
+      BitmapPool.getInstance().markInFlight(bitmap);
+      cacheHelper.addBitmapToCache(id, bitmap);
+    }
+
+    return bitmap;
   }
 
   /**
@@ -185,34 +284,60 @@ public abstract class Photo implements Parcelable, ClusterItem {
       int reqHeight
   ) {
     final Context context = imageView.getContext();
+    final ImageLoader imageLoader = ImageLoader.getInstance();
 
     // No photo, show placeholder and return
     if (StringHelper.isInvalidString(filepath)) {
-      imageView.setImageBitmap(
-          BitmapFactory.decodeResource(context.getResources(), R.drawable.placeholder)
-      );
+      imageLoader.cancel(imageView);
+      imageView.setImageBitmap(imageLoader.getPlaceholder(context.getResources()));
       return;
     }
 
-    BitmapRawTask bitmapRawTask = new BitmapRawTask(context, imageView);
-    bitmapRawTask.setReqWidth(reqWidth);
-    bitmapRawTask.setReqHeight(reqHeight);
-
-    try {
-      ExifInterface exifInterface = new ExifInterface(filepath);
+    final int width = reqWidth != 0 ? reqWidth : RAW_WIDTH;
+    final int height = reqHeight != 0 ? reqHeight : RAW_HEIGHT;
+    final Context appContext = context.getApplicationContext();
 
-      // Show the thumbnail first, then async load the raw image
-      Bitmap placeholder = exifInterface.hasThumbnail()
-          ? exifInterface.getThumbnailBitmap()
-          : BitmapFactory.decodeResource(context.getResources(), R.drawable.placeholder);
+    // Show the embedded thumbnail first, then the down sampled photo
+    imageLoader.loadInto(imageView, RAW_KEY + filepath + "@" + width + "x" + height,
+        Priority.FULL_SIZE, imageLoader.getPlaceholder(context.getResources()),
+        () -> decodeRawPhoto(appContext, filepath, width, height),
+        PREVIEW_KEY + filepath, () -> decodePreview(appContext, filepath));
+  }
 
-      final AsyncDrawable asyncDrawable =
-          new AsyncDrawable(context.getResources(), placeholder, bitmapRawTask);
+  /**
+   * Decode a down sampled photo. Runs on a decoder thread.
+   *
+   * @param context The application context
+   * @param filepath filepath of image
+   * @param width The required width for the decoded bitmap
+   * @param height The required height for the decoded bitmap
+   * @return Bitmap The photo, or null if the photo cannot be decoded
+   */
+  private static Bitmap decodeRawPhoto(Context context, String filepath, int width, int height) {
+    try (ImageFile file = ImageFile.open(filepath)) {
+      final ImageMetadata metadata = new ImageMetadataRepository(context).getMetadata(file);
+      return BitmapHelper.decodeSampledBitmap(file, metadata, width, height, Config.ARGB_8888);
+    } catch (IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
 
-      imageView.setImageDrawable(asyncDrawable);
-      bitmapRawTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, filepath);
-    } catch (Exception e) {
+  /**
+   * Decode the thumbnail embedded in a photo, shown while the photo is decoded. Runs on a decoder
+   * thread.
+   *
+   * @param context The application context
+   * @param filepath filepath of image
+   * @return Bitmap The embedded thumbnail, or null if the photo has none
+   */
+  private static Bitmap decodePreview(Context context, String filepath) {
+    try (ImageFile file = ImageFile.open(filepath)) {
+      final ImageMetadata metadata = new ImageMetadataRepository(context).getMetadata(file);
+      return BitmapHelper.decodeEmbeddedThumbnail(file, metadata, THUMBNAIL_SIZE);
+    } catch (IOException e) {
       e.printStackTrace();
+      return null;
     }
   }
 }
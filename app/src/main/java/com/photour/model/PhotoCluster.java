@@ -0,0 +1,61 @@
+package com.photour.model;
+
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import com.google.auto.value.AutoValue;
+import com.google.auto.value.AutoValue.CopyAnnotations;
+
+/**
+ * Entity class for a cell of the photo cluster pyramid. Every zoom level divides the world into a
+ * grid, a cell holds the number of photos inside it and the sum of their coordinates.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ * @see com.photour.database.ClusterPyramid
+ */
+@AutoValue
+@Entity(tableName = "photo_clusters", primaryKeys = {"zoom", "cellX", "cellY"})
+public abstract class PhotoCluster {
+
+  @CopyAnnotations
+  @ColumnInfo(name = "zoom")
+  public abstract int zoom();
+
+  @CopyAnnotations
+  @ColumnInfo(name = "cellX")
+  public abstract int cellX();
+
+  @CopyAnnotations
+  @ColumnInfo(name = "cellY")
+  public abstract int cellY();
+
+  @CopyAnnotations
+  @ColumnInfo(name = "photoCount")
+  public abstract int photoCount();
+
+  @CopyAnnotations
+  @ColumnInfo(name = "latSum")
+  public abstract double latSum();
+
+  @CopyAnnotations
+  @ColumnInfo(name = "lngSum")
+  public abstract double lngSum();
+
+  @Nullable
+  @CopyAnnotations
+  @ColumnInfo(name = "representativePhotoId")
+  public abstract Integer representativePhotoId();
+
+  public static PhotoCluster create(
+      int zoom,
+      int cellX,
+      int cellY,
+      int photoCount,
+      double latSum,
+      double lngSum,
+      Integer representativePhotoId
+  ) {
+    return new AutoValue_PhotoCluster(zoom, cellX, cellY, photoCount, latSum, lngSum,
+        representativePhotoId);
+  }
+}
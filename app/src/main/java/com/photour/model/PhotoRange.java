@@ -0,0 +1,13 @@
+package com.photour.model;
+
+/**
+ * Model for the number of photos in a range of the photo feed and the sum of their IDs, used to
+ * tell whether the photos of the range have changed without loading them
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class PhotoRange {
+
+  public int count;
+  public long idSum;
+}
@@ -0,0 +1,42 @@
+package com.photour.model;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import com.google.auto.value.AutoValue;
+
+/**
+ * Entity class for a point of the route of an ongoing visit. Points are appended in small batches
+ * while the visit is recorded, so the route survives the process being killed. They are folded into
+ * the visit once it ends.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+@AutoValue
+@Entity(
+    tableName = "route_points",
+    primaryKeys = {"visitId", "seq"},
+    foreignKeys = @ForeignKey(
+        entity = Visit.class,
+        parentColumns = "id",
+        childColumns = "visitId",
+        onDelete = ForeignKey.CASCADE
+    )
+)
+public abstract class RoutePoint {
+
+  public abstract int visitId();
+
+  // Position of the point in the route
+  public abstract int seq();
+
+  public abstract double lat();
+
+  public abstract double lng();
+
+  // Time the point was written, in milliseconds since the epoch
+  public abstract long time();
+
+  public static RoutePoint create(int visitId, int seq, double lat, double lng, long time) {
+    return new AutoValue_RoutePoint(visitId, seq, lat, lng, time);
+  }
+}
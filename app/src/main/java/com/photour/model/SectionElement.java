@@ -9,15 +9,18 @@ import java.util.List;
  */
 public class SectionElement {
 
+  private int key;
   private String title;
   private List<Photo> photos;
 
   /**
    * Constructor for Section Element
    *
+   * @param key key of section, the visit ID or the day of its photos
    * @param title title of section
    */
-  public SectionElement(String title) {
+  public SectionElement(int key, String title) {
+    this.key = key;
     this.title = title;
     this.photos = new ArrayList<>();
   }
@@ -40,6 +43,15 @@ public class SectionElement {
     return photos;
   }
 
+  /**
+   * Getter for Key
+   *
+   * @return key of section
+   */
+  public int getKey() {
+    return key;
+  }
+
   /**
    * Getter for Title
    *
@@ -1,10 +1,10 @@
 package com.photour.model;
 
 import android.os.Parcelable;
-import android.view.View;
 import androidx.annotation.Nullable;
-import androidx.navigation.Navigation;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.TypeConverters;
 import com.google.android.libraries.maps.model.LatLng;
@@ -12,7 +12,6 @@ import com.google.auto.value.AutoValue;
 import com.google.auto.value.AutoValue.CopyAnnotations;
 import com.photour.converter.LatLngListConverter;
 import com.photour.helper.DateHelper;
-import com.photour.ui.visits.VisitsFragmentDirections;
 import java.util.ArrayList;
 import java.util.Date;
 
@@ -22,7 +21,7 @@ import java.util.Date;
  * @author Zer Jun Eng, Jia Hua Ng
  */
 @AutoValue
-@Entity(tableName = "visits")
+@Entity(tableName = "visits", indices = {@Index("date")})
 @TypeConverters({LatLngListConverter.class})
 public abstract class Visit implements Parcelable {
 
@@ -51,6 +50,14 @@ public abstract class Visit implements Parcelable {
     return file_path;
   }
 
+  // Maintained by the triggers on the photos table, the first photo of the visit
+  @Nullable
+  public Integer coverPhotoId;
+
+  // Set once the visit has ended, or has been recovered after the app was killed during it
+  @ColumnInfo(defaultValue = "0")
+  public boolean ended;
+
   public static Visit create(
       int id,
       String visitTitle,
@@ -74,11 +81,4 @@ public abstract class Visit implements Parcelable {
   public String getDateInString() {
     return DateHelper.regularFormatWithNameTime(date());
   }
-
-  /**
-   * Onclick listener of the image
-   */
-  public void onImageClick(View view) {
-    Navigation.findNavController(view).navigate(VisitsFragmentDirections.actionViewVisit(this));
-  }
 }
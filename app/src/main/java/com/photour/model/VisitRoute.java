@@ -0,0 +1,45 @@
+package com.photour.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+import androidx.room.TypeConverters;
+import com.google.android.libraries.maps.model.LatLng;
+import com.google.auto.value.AutoValue;
+import com.google.auto.value.AutoValue.CopyAnnotations;
+import com.photour.converter.LatLngListConverter;
+import java.util.ArrayList;
+
+/**
+ * Entity class for the raw route of a visit, every point recorded during the visit. The visit
+ * itself stores the simplified route, which is what is drawn.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ * @see com.photour.helper.RouteHelper
+ */
+@AutoValue
+@Entity(
+    tableName = "visit_routes",
+    foreignKeys = @ForeignKey(
+        entity = Visit.class,
+        parentColumns = "id",
+        childColumns = "visitId",
+        onDelete = ForeignKey.CASCADE
+    )
+)
+@TypeConverters({LatLngListConverter.class})
+public abstract class VisitRoute {
+
+  @CopyAnnotations
+  @PrimaryKey
+  public abstract int visitId();
+
+  @NonNull
+  @CopyAnnotations
+  public abstract ArrayList<LatLng> latLngList();
+
+  public static VisitRoute create(int visitId, ArrayList<LatLng> latLngList) {
+    return new AutoValue_VisitRoute(visitId, latLngList);
+  }
+}
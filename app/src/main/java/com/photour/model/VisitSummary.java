@@ -0,0 +1,40 @@
+package com.photour.model;
+
+import android.view.View;
+import androidx.navigation.Navigation;
+import com.photour.helper.DateHelper;
+import com.photour.ui.visits.VisitsFragmentDirections;
+import java.util.Date;
+
+/**
+ * Model for a visit in the visits list. Only the columns shown on a card are loaded, the route of
+ * the visit is loaded when the visit is opened.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class VisitSummary {
+
+  public int id;
+  public String visitTitle;
+  public Date date;
+  public int imageCount;
+  public String file_path;
+
+  /**
+   * Format the date into user-friendly format
+   *
+   * @return String The formatted date
+   */
+  public String getDateInString() {
+    return DateHelper.regularFormatWithNameTime(date);
+  }
+
+  /**
+   * Onclick listener of the card, open the visit
+   *
+   * @param view The card that is clicked
+   */
+  public void onImageClick(View view) {
+    Navigation.findNavController(view).navigate(VisitsFragmentDirections.actionViewVisit(id));
+  }
+}
@@ -0,0 +1,12 @@
+package com.photour.model;
+
+/**
+ * Model for the title of a visit, loaded without the rest of the visit
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class VisitTitle {
+
+  public int id;
+  public String visitTitle;
+}
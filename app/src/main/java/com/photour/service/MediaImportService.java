@@ -0,0 +1,278 @@
+package com.photour.service;
+
+import android.app.IntentService;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.widget.Toast;
+import androidx.annotation.Nullable;
+import androidx.exifinterface.media.ExifInterface;
+import com.photour.BuildConfig;
+import com.photour.database.MediaImportRepository;
+import com.photour.model.ImportCheckpoint;
+import com.photour.model.Photo;
+import java.io.File;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Background service that imports the photos of a directory tree, such as the camera roll, into the
+ * visits they were taken in. The EXIF data of the files is read in parallel, and the photos are
+ * inserted in batches. A checkpoint is saved with every batch, so a rescan only reads the files
+ * added or modified since the last import. The checkpoint stops before the first photo that may
+ * have been taken during a visit still in progress, so that the photo is imported once the visit
+ * has ended.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class MediaImportService extends IntentService {
+
+  private static final String TAG = MediaImportService.class.getSimpleName();
+  private static final String EXTRA_ROOT_PATH = "root_path";
+
+  private static final int BATCH_SIZE = 50;
+  private static final int READER_THREADS = Math.max(2,
+      Math.min(4, Runtime.getRuntime().availableProcessors()));
+  private static final String EXIF_DATE_FORMAT = "yyyy:MM:dd HH:mm:ss";
+
+  /**
+   * Start importing the photos of a directory tree. Imports are queued and run one at a time.
+   *
+   * @param context Any context of the app
+   * @param rootPath The path of the directory
+   */
+  public static void start(Context context, String rootPath) {
+    context.startService(new Intent(context, MediaImportService.class)
+        .putExtra(EXTRA_ROOT_PATH, rootPath));
+  }
+
+  /**
+   * Constructor of {@link MediaImportService}
+   */
+  public MediaImportService() {
+    super(TAG);
+  }
+
+  /**
+   * Import the directory of the intent, on the worker thread of the service
+   *
+   * @param intent The intent passed to {@link #start(Context, String)}
+   */
+  @Override
+  protected void onHandleIntent(@Nullable Intent intent) {
+    final String rootPath = intent != null ? intent.getStringExtra(EXTRA_ROOT_PATH) : null;
+
+    if (rootPath == null) {
+      return;
+    }
+
+    final File root = new File(rootPath);
+
+    // The storage permission might have been revoked since the import was started
+    if (!root.canRead()) {
+      Log.e(TAG, "Cannot read " + rootPath);
+      showToast("Failed to import photos, storage is not accessible");
+      return;
+    }
+
+    final MediaImportRepository repository = new MediaImportRepository(this);
+    final List<ScannedFile> files = scan(root, repository.getCheckpoint(rootPath));
+    final Date unfinishedVisitStart = repository.getUnfinishedVisitStart();
+    final ExecutorService readers = Executors.newFixedThreadPool(READER_THREADS);
+    boolean checkpointHeld = false;
+    int imported = 0;
+
+    try {
+      for (int start = 0; start < files.size(); start += BATCH_SIZE) {
+        final List<ScannedFile> batch = files
+            .subList(start, Math.min(start + BATCH_SIZE, files.size()));
+        final List<Callable<Photo>> reads = new ArrayList<>();
+
+        for (ScannedFile scanned : batch) {
+          reads.add(() -> readPhoto(scanned.file));
+        }
+
+        final List<Future<Photo>> results = readers.invokeAll(reads);
+        final List<Photo> photos = new ArrayList<>();
+        ImportCheckpoint checkpoint = null;
+
+        for (int i = 0; i < batch.size(); i++) {
+          final Photo candidate = results.get(i).get();
+          final Photo photo = candidate != null ? repository.assignVisit(candidate) : null;
+
+          if (photo != null) {
+            photos.add(photo);
+          } else if (candidate != null && unfinishedVisitStart != null
+              && !candidate.date().before(unfinishedVisitStart)) {
+            // The photo may belong to the visit in progress, so it must be read again next time
+            checkpointHeld = true;
+          }
+
+          if (!checkpointHeld) {
+            final ScannedFile scanned = batch.get(i);
+            checkpoint = ImportCheckpoint.create(rootPath, scanned.modified,
+                scanned.file.getPath());
+          }
+        }
+
+        imported += repository.importBatch(photos, checkpoint);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      e.printStackTrace();
+    } finally {
+      readers.shutdownNow();
+    }
+
+    if (BuildConfig.DEBUG) {
+      Log.d(TAG, "Imported " + imported + " of " + files.size() + " new files in " + rootPath);
+    }
+  }
+
+  /**
+   * Show a toast from the worker thread of the service
+   *
+   * @param text The text to show
+   */
+  private void showToast(String text) {
+    final Context context = getApplicationContext();
+    new Handler(Looper.getMainLooper())
+        .post(() -> Toast.makeText(context, text, Toast.LENGTH_SHORT).show());
+  }
+
+  /**
+   * List the images of a directory tree that come after the checkpoint, in the order they must be
+   * imported. Only the file system entries are read, not the files.
+   *
+   * @param root The directory
+   * @param checkpoint The checkpoint of the directory, or null to list every image
+   * @return List<ScannedFile> The images, ordered by last modified time then path
+   */
+  private static List<ScannedFile> scan(File root, ImportCheckpoint checkpoint) {
+    final List<ScannedFile> images = new ArrayList<>();
+    final Deque<File> directories = new ArrayDeque<>();
+    directories.push(root);
+
+    while (!directories.isEmpty()) {
+      final File[] children = directories.pop().listFiles();
+
+      if (children == null) {
+        continue;
+      }
+
+      for (File child : children) {
+        if (child.isDirectory()) {
+          // Hidden directories hold thumbnails and caches, not photos
+          if (!child.getName().startsWith(".")) {
+            directories.push(child);
+          }
+        } else if (isImage(child)) {
+          final long modified = child.lastModified();
+
+          if (checkpoint == null || checkpoint.isBefore(modified, child.getPath())) {
+            images.add(new ScannedFile(child, modified));
+          }
+        }
+      }
+    }
+
+    Collections.sort(images, (a, b) -> {
+      final int byModified = Long.compare(a.modified, b.modified);
+      return byModified != 0 ? byModified : a.file.getPath().compareTo(b.file.getPath());
+    });
+
+    return images;
+  }
+
+  /**
+   * Check whether a file is a photo the importer can read the EXIF data of
+   *
+   * @param file The file
+   * @return boolean {@code true} if the file is a JPEG image
+   */
+  private static boolean isImage(File file) {
+    final String name = file.getName().toLowerCase(Locale.US);
+    return name.endsWith(".jpg") || name.endsWith(".jpeg");
+  }
+
+  /**
+   * Read the location and the date of a photo from its EXIF data. Runs on a reader thread.
+   *
+   * @param file The image file
+   * @return Photo The photo, with no visit yet, or null if it has no location
+   */
+  private static Photo readPhoto(File file) {
+    try {
+      final ExifInterface exifInterface = new ExifInterface(file.getPath());
+      final double[] latLng = exifInterface.getLatLong();
+
+      if (latLng == null) {
+        return null;
+      }
+
+      Date date = parseDate(exifInterface.getAttribute(ExifInterface.TAG_DATETIME_ORIGINAL));
+
+      if (date == null) {
+        date = parseDate(exifInterface.getAttribute(ExifInterface.TAG_DATETIME));
+      }
+
+      if (date == null) {
+        date = new Date(file.lastModified());
+      }
+
+      return Photo.create(0, 0, file.getPath(), date, latLng[0], latLng[1], null, null);
+    } catch (Exception e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  /**
+   * Parse an EXIF date, which is in the local time of the camera
+   *
+   * @param value The value of the EXIF tag
+   * @return Date The date, or null if the tag is missing or malformed
+   */
+  private static Date parseDate(String value) {
+    if (value == null) {
+      return null;
+    }
+
+    try {
+      return new SimpleDateFormat(EXIF_DATE_FORMAT, Locale.US).parse(value);
+    } catch (ParseException e) {
+      return null;
+    }
+  }
+
+  /**
+   * An image found by the scan, with the last modified time it had at the time
+   *
+   * @author Zer Jun Eng, Jia Hua Ng
+   */
+  private static class ScannedFile {
+
+    final File file;
+    final long modified;
+
+    ScannedFile(File file, long modified) {
+      this.file = file;
+      this.modified = modified;
+    }
+  }
+}
@@ -23,11 +23,14 @@ import com.google.android.gms.location.LocationServices;
 import com.google.android.libraries.maps.model.LatLng;
 import com.photour.MainActivity;
 import com.photour.R;
+import com.photour.database.VisitRepository;
 import com.photour.helper.LocationHelper;
+import com.photour.model.RoutePoint;
 import com.photour.ui.visitnew.ImageMarker;
 import com.photour.ui.visitnew.StartVisitFragment;
 import com.photour.ui.visitnew.StartVisitMap;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Background JobService for tracking a new visit
@@ -44,6 +47,9 @@ public class StartVisitService extends Service {
   private static final int FASTEST_INTERVAL = 1000;
   private static final float MIN_DISPLACEMENT = 10;
 
+  // Route points are written once this many are waiting
+  private static final int ROUTE_BATCH_SIZE = 5;
+
   public static boolean isRunning = false;
 
   // If visitRowId == 0, then this new visit has not been inserted into the database yet
@@ -64,6 +70,12 @@ public class StartVisitService extends Service {
 
   private final IBinder binder = new LocalBinder();
 
+  private VisitRepository visitRepository;
+
+  // Number of points of latLngList that have been written to the database
+  private int persistedPoints = 0;
+  private boolean routeFinished = false;
+
   /**
    * Class used for the client Binder.  Since this service runs in the same process as its clients,
    * we don't need to deal with IPC.
@@ -94,6 +106,7 @@ public class StartVisitService extends Service {
       }
     };
 
+    visitRepository = new VisitRepository(getApplication());
     createNotificationChannel();
   }
 
@@ -129,6 +142,7 @@ public class StartVisitService extends Service {
     Log.d(TAG, "Stopping service...");
     super.onDestroy();
     isRunning = false;
+    persistRoute(true);
     removeLocationUpdates();
     stopForeground(true);
     stopSelf();
@@ -210,8 +224,7 @@ public class StartVisitService extends Service {
     isRunning = true;
 
     if (visitRowId == 0) {
-      startVisitFragment.viewModel.insertVisit();
-      visitRowId = startVisitFragment.viewModel.getVisitRowId();
+      startVisitFragment.viewModel.insertVisit(rowId -> visitRowId = rowId);
     }
 
     requestLocationUpdates();
@@ -237,11 +250,49 @@ public class StartVisitService extends Service {
 
     if (LocationHelper.shouldAddToLatLntList(latLngList, latLng)) {
       latLngList.add(latLng);
+      persistRoute(false);
     }
 
     visitMap.currentLocation.setValue(location);
   }
 
+  /**
+   * Write the points of the route that have not been written yet, once there is a batch of them.
+   * Points recorded before the visit has been inserted are written with the first batch after.
+   *
+   * @param force {@code true} to write the waiting points even if there are not enough of them
+   */
+  private void persistRoute(boolean force) {
+    // The list is replaced by the one of the fragment when the fragment has newer data
+    persistedPoints = Math.min(persistedPoints, latLngList.size());
+    final int waiting = latLngList.size() - persistedPoints;
+
+    if (routeFinished || visitRowId == 0 || waiting == 0
+        || (!force && waiting < ROUTE_BATCH_SIZE)) {
+      return;
+    }
+
+    final long now = System.currentTimeMillis();
+    final List<RoutePoint> points = new ArrayList<>(waiting);
+
+    for (int seq = persistedPoints; seq < latLngList.size(); seq++) {
+      final LatLng point = latLngList.get(seq);
+      points.add(RoutePoint.create((int) visitRowId, seq, point.latitude, point.longitude, now));
+    }
+
+    persistedPoints = latLngList.size();
+    visitRepository.appendRoutePoints(points);
+  }
+
+  /**
+   * Write the rest of the route before the visit ends. No points are written afterwards, the
+   * route is saved with the visit instead.
+   */
+  public void finishRoute() {
+    persistRoute(true);
+    routeFinished = true;
+  }
+
   /**
    * Get the last location of the device
    */
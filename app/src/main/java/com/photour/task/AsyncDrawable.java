@@ -3,36 +3,35 @@ package com.photour.task;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.drawable.BitmapDrawable;
-import java.lang.ref.WeakReference;
 
 /**
- * A class for referencing tasks with ImageView
+ * A class for referencing requests with ImageView
  *
  * @author Zer Jun Eng, Jia Hua Ng
  */
 public class AsyncDrawable extends BitmapDrawable {
 
-  private final WeakReference<BitmapTask> bitmapTaskReference;
+  private final ImageLoader.Request request;
 
   /**
-   * Constructor for AsyncDrawable. Used as a reference to replace the given imageView when async
-   * task is done.
+   * Constructor for AsyncDrawable. Used as a reference to replace the given imageView when the
+   * request is done.
    *
    * @param res Resource object
    * @param bitmap Placeholder bitmap for the imageView
-   * @param bitmapTask Async task for the given imageView
+   * @param request Request of the {@link ImageLoader} for the given imageView
    */
-  public AsyncDrawable(Resources res, Bitmap bitmap, BitmapTask bitmapTask) {
+  AsyncDrawable(Resources res, Bitmap bitmap, ImageLoader.Request request) {
     super(res, bitmap);
-    bitmapTaskReference = new WeakReference<>(bitmapTask);
+    this.request = request;
   }
 
   /**
-   * Getter for BitmapTask
+   * Getter for the request
    *
-   * @return BitmapTask
+   * @return ImageLoader.Request
    */
-  BitmapTask getBitmapTask() {
-    return bitmapTaskReference.get();
+  ImageLoader.Request getRequest() {
+    return request;
   }
 }
@@ -0,0 +1,228 @@
+package com.photour.task;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import androidx.annotation.WorkerThread;
+import androidx.exifinterface.media.ExifInterface;
+import com.photour.helper.BitmapHelper;
+import com.photour.model.ImageMetadata;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * An image file that is opened once per load. The EXIF data, the embedded thumbnail and the image
+ * itself are all read through the same file descriptor, instead of opening the file again for each
+ * of them.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class ImageFile implements Closeable {
+
+  private static final int DOMINANT_COLOR_SIZE = 16;
+
+  private final String filePath;
+  private final long modified;
+  private final long fileSize;
+  private final RandomAccessFile file;
+
+  /**
+   * Open an image file
+   *
+   * @param filePath The file path of the image
+   * @return ImageFile The opened file, which must be closed
+   * @throws IOException If the file cannot be opened
+   */
+  @WorkerThread
+  public static ImageFile open(String filePath) throws IOException {
+    return new ImageFile(filePath);
+  }
+
+  /**
+   * Constructor of {@link ImageFile}
+   *
+   * @param filePath The file path of the image
+   * @throws IOException If the file cannot be opened
+   */
+  private ImageFile(String filePath) throws IOException {
+    this.filePath = filePath;
+    final File stat = new File(filePath);
+    this.modified = stat.lastModified();
+    this.fileSize = stat.length();
+    this.file = new RandomAccessFile(filePath, "r");
+  }
+
+  /**
+   * Get the file path of the image
+   *
+   * @return String The file path
+   */
+  public String getFilePath() {
+    return filePath;
+  }
+
+  /**
+   * Get the last modified time of the file
+   *
+   * @return long The last modified time in milliseconds
+   */
+  public long getModified() {
+    return modified;
+  }
+
+  /**
+   * Get the size of the file
+   *
+   * @return long The size in bytes
+   */
+  public long getFileSize() {
+    return fileSize;
+  }
+
+  /**
+   * Read the dimensions, the orientation and the position of the thumbnail in a single pass over
+   * the EXIF data. The dimensions of files that ExifInterface cannot read are decoded from the
+   * image bounds instead. The dominant colour is taken from the smallest decode available.
+   *
+   * @return ImageMetadata The metadata of the image
+   * @throws IOException If the file cannot be read
+   */
+  @WorkerThread
+  public ImageMetadata readMetadata() throws IOException {
+    int width = 0;
+    int height = 0;
+    int orientation = ExifInterface.ORIENTATION_NORMAL;
+    long thumbnailOffset = 0;
+    int thumbnailLength = 0;
+
+    try {
+      file.seek(0);
+      final ExifInterface exifInterface = new ExifInterface(file.getFD());
+
+      width = exifInterface.getAttributeInt(ExifInterface.TAG_IMAGE_WIDTH, 0);
+      height = exifInterface.getAttributeInt(ExifInterface.TAG_IMAGE_LENGTH, 0);
+      orientation = exifInterface.getAttributeInt(ExifInterface.TAG_ORIENTATION,
+          ExifInterface.ORIENTATION_NORMAL);
+
+      final long[] range = exifInterface.hasThumbnail() && exifInterface.isThumbnailCompressed()
+          ? exifInterface.getThumbnailRange() : null;
+
+      if (range != null) {
+        thumbnailOffset = range[0];
+        thumbnailLength = (int) range[1];
+      }
+    } catch (Exception e) {
+      // Not an image ExifInterface can read, the bounds are still decoded below
+      e.printStackTrace();
+    }
+
+    if (width <= 0 || height <= 0) {
+      final BitmapFactory.Options options = new BitmapFactory.Options();
+      options.inJustDecodeBounds = true;
+      decode(options);
+      width = options.outWidth;
+      height = options.outHeight;
+    }
+
+    final int dominantColor = readDominantColor(width, height, thumbnailOffset, thumbnailLength);
+
+    return ImageMetadata.create(filePath, modified, fileSize, width, height, orientation,
+        thumbnailOffset, thumbnailLength, dominantColor);
+  }
+
+  /**
+   * Read the compressed EXIF thumbnail of the image
+   *
+   * @param metadata The metadata of this file
+   * @return byte[] The bytes of the thumbnail, or null if there is none
+   * @throws IOException If the file cannot be read
+   */
+  @WorkerThread
+  public byte[] readThumbnail(ImageMetadata metadata) throws IOException {
+    if (!metadata.hasThumbnail()) {
+      return null;
+    }
+
+    return readBytes(metadata.thumbnailOffset(), metadata.thumbnailLength());
+  }
+
+  /**
+   * Decode the image from the start of the file
+   *
+   * @param options The options of the decode
+   * @return Bitmap The decoded bitmap, or null if only the bounds are decoded or on failure
+   * @throws IOException If the file cannot be read
+   */
+  @WorkerThread
+  public Bitmap decode(BitmapFactory.Options options) throws IOException {
+    file.seek(0);
+    return BitmapFactory.decodeFileDescriptor(file.getFD(), null, options);
+  }
+
+  /**
+   * Compute the dominant colour of the image from the embedded thumbnail if there is one, otherwise
+   * from a heavily sampled decode of the image
+   *
+   * @param width The width of the image
+   * @param height The height of the image
+   * @param thumbnailOffset The position of the embedded thumbnail, 0 if there is none
+   * @param thumbnailLength The length of the embedded thumbnail
+   * @return int The dominant colour, or 0 if the image cannot be decoded
+   * @throws IOException If the file cannot be read
+   */
+  private int readDominantColor(int width, int height, long thumbnailOffset, int thumbnailLength)
+      throws IOException {
+    final BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inPreferredConfig = Bitmap.Config.RGB_565;
+    final Bitmap bitmap;
+
+    if (thumbnailOffset > 0 && thumbnailLength > 0) {
+      final byte[] data = readBytes(thumbnailOffset, thumbnailLength);
+      bitmap = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    } else {
+      options.inSampleSize = 1;
+
+      while (Math.min(width, height) / (options.inSampleSize * 2) >= DOMINANT_COLOR_SIZE) {
+        options.inSampleSize *= 2;
+      }
+
+      bitmap = decode(options);
+    }
+
+    if (bitmap == null) {
+      return 0;
+    }
+
+    final int color = BitmapHelper.getDominantColor(bitmap);
+    bitmap.recycle();
+
+    return color;
+  }
+
+  /**
+   * Read a range of bytes of the file
+   *
+   * @param offset The position of the first byte
+   * @param length The number of bytes
+   * @return byte[] The bytes read
+   * @throws IOException If the file cannot be read
+   */
+  private byte[] readBytes(long offset, int length) throws IOException {
+    final byte[] data = new byte[length];
+    file.seek(offset);
+    file.readFully(data);
+
+    return data;
+  }
+
+  /**
+   * Close the file
+   *
+   * @throws IOException If the file cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+}
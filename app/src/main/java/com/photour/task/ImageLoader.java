@@ -0,0 +1,412 @@
+package com.photour.task;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.widget.ImageView;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import com.photour.R;
+import com.photour.helper.BitmapPool;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads bitmaps on a bounded pool of decoder threads. Decodes are queued by {@link Priority}, so
+ * the thumbnails on screen are decoded before anything else. Requests for a key that is already
+ * being decoded share the same decode, and a request for an {@link ImageView} is cancelled as soon
+ * as the view is bound to another image. Every method must be called on the main thread.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class ImageLoader {
+
+  /**
+   * Priority lanes of the decoder queue, from the most to the least urgent
+   */
+  public enum Priority {
+    THUMBNAIL,
+    FULL_SIZE,
+    MARKER,
+    PREFETCH
+  }
+
+  private static final int DECODER_THREADS = Math.max(2,
+      Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+  private static ImageLoader instance;
+
+  private final ThreadPoolExecutor decoderPool = new ThreadPoolExecutor(DECODER_THREADS,
+      DECODER_THREADS, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(),
+      new DecoderThreadFactory());
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  // Decodes that are queued or running, keyed by image
+  private final Map<String, Job> jobs = new HashMap<>();
+  private long sequence = 0;
+  private Bitmap placeholder;
+
+  /**
+   * Get the instance of {@link ImageLoader}
+   *
+   * @return ImageLoader The image loader of the app
+   */
+  @MainThread
+  public static ImageLoader getInstance() {
+    if (instance == null) {
+      instance = new ImageLoader();
+    }
+
+    return instance;
+  }
+
+  /**
+   * Private constructor, use {@link #getInstance()}
+   */
+  private ImageLoader() {
+  }
+
+  /**
+   * Load a bitmap. If the same key is already being decoded, the request joins that decode and
+   * raises its priority if needed.
+   *
+   * @param key The key identifying the decoded bitmap
+   * @param priority The priority of the request
+   * @param decoder The decoder, called on a decoder thread
+   * @param callback The callback, called on the main thread with the bitmap or null on failure
+   * @return Request The request, which can be cancelled
+   */
+  @MainThread
+  public Request load(String key, Priority priority, Callable<Bitmap> decoder,
+      Callback callback) {
+    final Request request = new Request(key, callback);
+    enqueue(request, priority, decoder);
+
+    return request;
+  }
+
+  /**
+   * Load a bitmap into an {@link ImageView}. The placeholder is shown until the bitmap is decoded.
+   * The previous request of the view is cancelled, unless it is for the same key.
+   *
+   * @param imageView The view to show the bitmap
+   * @param key The key identifying the decoded bitmap
+   * @param priority The priority of the request
+   * @param placeholder The bitmap to show while decoding
+   * @param decoder The decoder, called on a decoder thread
+   */
+  @MainThread
+  public void loadInto(ImageView imageView, String key, Priority priority, Bitmap placeholder,
+      Callable<Bitmap> decoder) {
+    loadInto(imageView, key, priority, placeholder, decoder, null, null);
+  }
+
+  /**
+   * Load a bitmap into an {@link ImageView}, showing a preview until it is decoded. The preview,
+   * such as the embedded thumbnail of a photo, is decoded in the thumbnail lane and replaces the
+   * placeholder if it is ready first.
+   *
+   * @param imageView The view to show the bitmap
+   * @param key The key identifying the decoded bitmap
+   * @param priority The priority of the request
+   * @param placeholder The bitmap to show while decoding
+   * @param decoder The decoder, called on a decoder thread
+   * @param previewKey The key identifying the decoded preview
+   * @param previewDecoder The decoder of the preview, may return null if there is no preview
+   */
+  @MainThread
+  public void loadInto(ImageView imageView, String key, Priority priority, Bitmap placeholder,
+      Callable<Bitmap> decoder, String previewKey, Callable<Bitmap> previewDecoder) {
+    final Request current = getRequest(imageView);
+
+    if (current != null) {
+      // The same image is already being loaded into the view
+      if (current.key.equals(key) && !current.cancelled) {
+        return;
+      }
+
+      current.cancel();
+    }
+
+    final WeakReference<ImageView> viewReference = new WeakReference<>(imageView);
+    final Request request = new Request(key, null);
+
+    request.callback = bitmap -> {
+      final ImageView view = viewReference.get();
+
+      // The preview is no longer needed if it has not been decoded yet
+      if (request.preview != null) {
+        request.preview.cancel();
+        request.preview = null;
+      }
+
+      // Only set the bitmap if the view has not been bound to another image since
+      if (view != null && bitmap != null && getRequest(view) == request) {
+        view.setImageBitmap(bitmap);
+        BitmapPool.getInstance().setShown(view, bitmap);
+      }
+    };
+
+    imageView.setImageDrawable(
+        new AsyncDrawable(imageView.getResources(), placeholder, request));
+    BitmapPool.getInstance().setShown(imageView, null);
+
+    if (previewDecoder != null) {
+      request.preview = load(previewKey, Priority.THUMBNAIL, previewDecoder, preview -> {
+        final ImageView view = viewReference.get();
+        request.preview = null;
+
+        // Keep the request in the drawable, so that it can still be cancelled
+        if (view != null && preview != null && getRequest(view) == request) {
+          view.setImageDrawable(new AsyncDrawable(view.getResources(), preview, request));
+        }
+      });
+    }
+
+    enqueue(request, priority, decoder);
+  }
+
+  /**
+   * Cancel the request of an {@link ImageView}, if any. Called when the view is recycled or shows
+   * a bitmap that has not been loaded by this loader.
+   *
+   * @param imageView The view
+   */
+  @MainThread
+  public void cancel(ImageView imageView) {
+    final Request request = getRequest(imageView);
+
+    if (request != null) {
+      request.cancel();
+    }
+  }
+
+  /**
+   * Get the placeholder bitmap of photos, decoded once
+   *
+   * @param resources The resources of the app
+   * @return Bitmap The placeholder bitmap
+   */
+  @MainThread
+  public Bitmap getPlaceholder(Resources resources) {
+    if (placeholder == null) {
+      placeholder = BitmapFactory.decodeResource(resources, R.drawable.placeholder);
+    }
+
+    return placeholder;
+  }
+
+  /**
+   * Add the request to the decode of its key, or start a new decode
+   *
+   * @param request The request
+   * @param priority The priority of the request
+   * @param decoder The decoder of the bitmap
+   */
+  private void enqueue(Request request, Priority priority, Callable<Bitmap> decoder) {
+    Job job = jobs.get(request.key);
+
+    if (job == null) {
+      job = new Job(request.key, priority, sequence++, decoder);
+      jobs.put(request.key, job);
+      job.requests.add(request);
+      request.job = job;
+      decoderPool.execute(job);
+      return;
+    }
+
+    job.requests.add(request);
+    request.job = job;
+
+    // Move a queued decode up to the more urgent lane
+    if (priority.ordinal() < job.priority.ordinal() && decoderPool.remove(job)) {
+      job.priority = priority;
+      decoderPool.execute(job);
+    }
+  }
+
+  /**
+   * Deliver the result of a decode to its requests that have not been cancelled
+   *
+   * @param job The decode that has finished
+   * @param bitmap The decoded bitmap, or null on failure
+   */
+  private void deliver(Job job, Bitmap bitmap) {
+    if (jobs.get(job.key) == job) {
+      jobs.remove(job.key);
+    }
+
+    // A callback may start or cancel other requests, so the requests are detached first
+    final List<Request> requests = new ArrayList<>(job.requests);
+    job.requests.clear();
+
+    for (Request request : requests) {
+      request.job = null;
+    }
+
+    for (Request request : requests) {
+      request.callback.onLoaded(bitmap);
+    }
+  }
+
+  /**
+   * Get the request of an {@link ImageView} from its {@link AsyncDrawable}
+   *
+   * @param imageView The view
+   * @return Request The request, or null if the view is not loading
+   */
+  private static Request getRequest(ImageView imageView) {
+    if (imageView == null) {
+      return null;
+    }
+
+    final Drawable drawable = imageView.getDrawable();
+
+    return drawable instanceof AsyncDrawable ? ((AsyncDrawable) drawable).getRequest() : null;
+  }
+
+  /**
+   * A request for a bitmap. Cancelling the last request of a decode removes the decode from the
+   * queue.
+   */
+  public class Request {
+
+    private final String key;
+    private Callback callback;
+    private Job job;
+    private Request preview;
+    private boolean cancelled = false;
+
+    Request(String key, Callback callback) {
+      this.key = key;
+      this.callback = callback;
+    }
+
+    /**
+     * Cancel the request, its callback will not be called
+     */
+    @MainThread
+    public void cancel() {
+      cancelled = true;
+
+      if (preview != null) {
+        preview.cancel();
+        preview = null;
+      }
+
+      if (job == null) {
+        return;
+      }
+
+      job.requests.remove(this);
+
+      if (job.requests.isEmpty()) {
+        job.cancelled = true;
+        decoderPool.remove(job);
+
+        if (jobs.get(key) == job) {
+          jobs.remove(key);
+        }
+      }
+
+      job = null;
+    }
+  }
+
+  /**
+   * A decode of a bitmap, ordered by priority then by order of submission
+   */
+  private class Job implements Runnable, Comparable<Job> {
+
+    private final String key;
+    private final long sequence;
+    private final Callable<Bitmap> decoder;
+    private final List<Request> requests = new ArrayList<>(1);
+
+    // Only changed while the job is out of the queue
+    private Priority priority;
+    private volatile boolean cancelled = false;
+
+    Job(String key, Priority priority, long sequence, Callable<Bitmap> decoder) {
+      this.key = key;
+      this.priority = priority;
+      this.sequence = sequence;
+      this.decoder = decoder;
+    }
+
+    @Override
+    public void run() {
+      if (cancelled) {
+        return;
+      }
+
+      Bitmap bitmap;
+
+      try {
+        bitmap = decoder.call();
+      } catch (Exception e) {
+        e.printStackTrace();
+        bitmap = null;
+      }
+
+      final Bitmap result = bitmap;
+      mainHandler.post(() -> {
+        if (!cancelled) {
+          deliver(this, result);
+        }
+
+        // The views have been given the bitmap, it can be pooled once none of them shows it
+        BitmapPool.getInstance().endInFlight(result);
+      });
+    }
+
+    @Override
+    public int compareTo(@NonNull Job other) {
+      final int byPriority = priority.compareTo(other.priority);
+
+      return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+    }
+  }
+
+  /**
+   * Interface for the result of a request
+   */
+  public interface Callback {
+
+    /**
+     * Called on the main thread when the bitmap has been decoded
+     *
+     * @param bitmap The bitmap, or null if it cannot be decoded
+     */
+    void onLoaded(Bitmap bitmap);
+  }
+
+  /**
+   * Creates the decoder threads, which run below the priority of the UI thread
+   */
+  private static class DecoderThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(@NonNull Runnable r) {
+      return new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        r.run();
+      }, "image-decoder-" + count.incrementAndGet());
+    }
+  }
+}
@@ -22,6 +22,7 @@ import com.google.android.material.bottomsheet.BottomSheetBehavior;
 import com.photour.R;
 import com.photour.database.VisitRepository;
 import com.photour.databinding.FragmentPhotoBinding;
+import com.photour.helper.FutureHelper;
 import com.photour.helper.PermissionHelper;
 import com.photour.helper.PreferenceHelper;
 import com.photour.model.Photo;
@@ -82,7 +83,8 @@ public class PhotoFragment extends Fragment implements OnMapReadyCallback {
       photo = PhotoFragmentArgs.fromBundle(getArguments()).getPhoto();
       binding.setPhoto(photo);
       binding.setUnit(PreferenceHelper.tempUnit(getContext()));
-      binding.setVisitTitle(visitRepository.getVisitTitle(photo.visitId()));
+      FutureHelper.addCallback(visitRepository.getVisitTitle(photo.visitId()), activity,
+          binding::setVisitTitle);
     }
 
     BottomSheetBehavior bottomSheetBehavior = BottomSheetBehavior.from(binding.standardBottomSheet);
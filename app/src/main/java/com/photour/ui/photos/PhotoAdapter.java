@@ -5,7 +5,9 @@ import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.photour.databinding.ItemPhotoBinding;
+import com.photour.helper.BitmapPool;
 import com.photour.model.Photo;
+import com.photour.task.ImageLoader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,6 +20,13 @@ public class PhotoAdapter extends RecyclerView.Adapter<PhotoAdapter.ImageCard> {
 
   private List<Photo> items = new ArrayList<>();
 
+  /**
+   * Constructor of {@link PhotoAdapter}. Items are identified by the ID of the photo.
+   */
+  public PhotoAdapter() {
+    setHasStableIds(true);
+  }
+
   /**
    * Accessor for items
    *
@@ -62,6 +71,40 @@ public class PhotoAdapter extends RecyclerView.Adapter<PhotoAdapter.ImageCard> {
     holder.itemPhotoBinding.executePendingBindings();
   }
 
+  /**
+   * Called when a view created by this adapter has been recycled. The thumbnail that is still
+   * loading for the view is no longer needed, and the thumbnail it shows can be reused once it has
+   * been evicted from the cache.
+   *
+   * @param holder The ViewHolder for the view being recycled
+   */
+  @Override
+  public void onViewRecycled(@NonNull ImageCard holder) {
+    ImageLoader.getInstance().cancel(holder.itemPhotoBinding.imageItem);
+    BitmapPool.getInstance().setShown(holder.itemPhotoBinding.imageItem, null);
+  }
+
+  /**
+   * Getter for item
+   *
+   * @param position position of item
+   * @return Photo The photo at the position
+   */
+  Photo getItem(int position) {
+    return items.get(position);
+  }
+
+  /**
+   * Getter for id of item
+   *
+   * @param position position of item
+   * @return long ID of the photo
+   */
+  @Override
+  public long getItemId(int position) {
+    return items.get(position).id();
+  }
+
   /**
    * Getter for data set size
    *
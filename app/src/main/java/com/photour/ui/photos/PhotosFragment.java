@@ -16,20 +16,15 @@ import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.collection.ArrayMap;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import com.google.common.collect.Lists;
 import com.photour.R;
+import com.photour.database.PhotoFeed;
 import com.photour.databinding.FragmentPhotosBinding;
-import com.photour.helper.DateHelper;
 import com.photour.helper.PermissionHelper;
 import com.photour.model.Photo;
-import com.photour.model.SectionElement;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 
 /**
@@ -42,6 +37,9 @@ public class PhotosFragment extends Fragment {
   public static LruCache<String, Bitmap> mRetainedCache;
 
   private static final String[] PERMISSIONS_REQUIRED = {permission.WRITE_EXTERNAL_STORAGE};
+
+  // Number of rows below the screen whose thumbnails are prefetched
+  private static final int PREFETCH_ROWS = 3;
   private PermissionHelper permissionHelper;
 
   private SectionedGridRecyclerViewAdapter mSectionedAdapter;
@@ -49,6 +47,9 @@ public class PhotosFragment extends Fragment {
   private PhotoAdapter photoAdapter;
 
   private PhotosViewModel photosViewModel;
+
+  private boolean hasMorePages = false;
+
   private FragmentPhotosBinding binding;
   private Activity activity;
 
@@ -150,101 +151,86 @@ public class PhotosFragment extends Fragment {
     mSectionedAdapter = new
         SectionedGridRecyclerViewAdapter(activity, R.layout.fragment_photos_sort,
         R.id.sorted_title_view, mRecyclerView, photoAdapter);
+    mRecyclerView.setAdapter(mSectionedAdapter);
+
+    // Load the next page when the end of the grid is near
+    mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+      @Override
+      public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        loadNextPageIfNeeded();
 
-    // set observer to image list, on calls adapters to reset
-    photosViewModel.photos.observe(getViewLifecycleOwner(), this::resetGrid);
+        if (dy > 0) {
+          prefetchThumbnails();
+        }
+      }
+    });
+
+    // set observer to the sectioned photos, only the changed items of the grid are updated
+    photosViewModel.getSectionedPhotos().observe(getViewLifecycleOwner(), this::onPhotosSectioned);
   }
 
   /**
-   * Function to reload recycler view. Calls sectionImage to split images.
-   * The adapters are then notified to take change
+   * Submit the sectioned photos to the grid
    *
-   * @param photos List of Photos
+   * @param sectionedPhotos The photos of the feed with their sections
    */
-  private void resetGrid(List<Photo> photos) {
-    // Initialise lists to store grid objects
-    List<SectionedGridRecyclerViewAdapter.Section> sections = new ArrayList<>();
-    List<Photo> photoList = new ArrayList<>();
-    SectionedGridRecyclerViewAdapter.Section[] dummy =
-        new SectionedGridRecyclerViewAdapter.Section[sections.size()];
+  private void onPhotosSectioned(PhotosViewModel.SectionedPhotos sectionedPhotos) {
+    hasMorePages = sectionedPhotos.hasMore;
 
-    List<SectionElement> sectionElements = sectionImages(
-        photosViewModel.isSortByAsc() ? Lists.reverse(photos) : photos);
+    // Prompts text if no photos
+    photosViewModel.setPlaceholderText(!sectionedPhotos.photos.isEmpty());
+    mSectionedAdapter.submit(sectionedPhotos.photos, sectionedPhotos.sections);
 
-    // Prompts text if no photos, else load photos into lists
-    if (photos == null || photos.isEmpty()) {
-      photosViewModel.setPlaceholderText(false);
-    } else {
-      int pos = 0;
-      photosViewModel.setPlaceholderText(true);
+    // The first pages might not fill the screen, so no scroll event would load the next one
+    mRecyclerView.post(this::loadNextPageIfNeeded);
+  }
 
-      for (SectionElement sectionElement : sectionElements) {
-        sections.add(new SectionedGridRecyclerViewAdapter.Section(pos, sectionElement.getTitle()));
+  /**
+   * Ask the feed for the next page when the last visible item is close to the end of the grid
+   */
+  private void loadNextPageIfNeeded() {
+    if (!hasMorePages || mRecyclerView == null) {
+      return;
+    }
 
-        pos += sectionElement.getPhotos().size(); // add number of photos and title
+    GridLayoutManager layoutManager = (GridLayoutManager) mRecyclerView.getLayoutManager();
 
-        photoList.addAll(sectionElement.getPhotos());
-      }
+    if (layoutManager != null && layoutManager.findLastVisibleItemPosition()
+        >= mSectionedAdapter.getItemCount() - PhotoFeed.PAGE_SIZE / 2) {
+      photosViewModel.loadNextPage();
     }
-
-    // Parses values into adapters and update view
-    photoAdapter.setItems(photoList);
-    photoAdapter.notifyDataSetChanged();
-    mSectionedAdapter.setSections(sections.toArray(dummy));
-    mSectionedAdapter.notifyDataSetChanged();
-    mRecyclerView.setAdapter(mSectionedAdapter);
   }
 
   /**
-   * Uses Mediastore query to get all photos from database according to the sort configuration.
-   *
-   * @param photos List of images to be sectioned
-   * @return List lists of SectionElement, each representing a section in the gallery
+   * Prefetch the thumbnails of the rows below the last visible one, at the lowest priority
    */
-  private List<SectionElement> sectionImages(List<Photo> photos) {
-    final List<SectionElement> sections = new ArrayList<>();
-    final ArrayMap<String, Integer> titles = new ArrayMap<>();
+  private void prefetchThumbnails() {
+    GridLayoutManager layoutManager = (GridLayoutManager) mRecyclerView.getLayoutManager();
 
-    if (photos == null) {
-      return sections;
+    if (layoutManager == null) {
+      return;
     }
 
-    //  Iterates through Photo objects and append them into SectionElement
-    for (Photo photo : photos) {
-      String currentTitle = photosViewModel.isSortByVisit()
-          ? String.valueOf(photo.visitId())
-          : DateHelper.regularFormat(photo.date()
-      );
-
-      if (!titles.containsKey(currentTitle)) {
-        sections.add(new SectionElement(photosViewModel.isSortByVisit()
-            ? photosViewModel.getVisitTitle(photo.visitId())
-            : currentTitle)
-        );
-        titles.put(currentTitle, sections.size() - 1);
-      }
+    final int first = layoutManager.findLastVisibleItemPosition() + 1;
+    final int last = first + layoutManager.getSpanCount() * PREFETCH_ROWS;
 
-      // Null-checking
-      Integer value = titles.get(currentTitle);
+    for (int position = first; position < last; position++) {
+      final Photo photo = mSectionedAdapter.getPhoto(position);
 
-      if (value != null) {
-        sections.get(value).addPhoto(photo);
+      if (photo != null) {
+        Photo.prefetchThumbnail(activity, photo);
       }
     }
-
-    return sections;
   }
 
   /**
-   * Switch sorting mode and call resetGrid() to reload recyclerView
+   * Switch sorting mode. Changing the date order loads a new feed, otherwise the loaded photos are
+   * sectioned again.
    *
    * @param type The type to sort the photos (by date or by path)
    */
   private void switchSortMode(int type) {
-    if (photosViewModel.sortMode != type) {
-      photosViewModel.sortMode = type;
-      resetGrid(photosViewModel.photos.getValue());
-    }
+    photosViewModel.setSortMode(type);
   }
 
   /**
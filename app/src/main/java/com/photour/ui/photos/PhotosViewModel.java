@@ -3,15 +3,32 @@ package com.photour.ui.photos;
 import android.app.Application;
 import android.content.Context;
 import android.util.DisplayMetrics;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import com.google.android.libraries.maps.model.LatLngBounds;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.photour.R;
+import com.photour.database.PhotoFeed;
 import com.photour.database.PhotoRepository;
 import com.photour.database.VisitRepository;
+import com.photour.helper.DateHelper;
+import com.photour.model.ClusterCell;
 import com.photour.model.Photo;
+import com.photour.model.SectionElement;
+import com.photour.model.VisitTitle;
+import com.photour.ui.photos.SectionedGridRecyclerViewAdapter.Section;
+import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * A ViewModel for {@link PhotosFragment}
@@ -26,7 +43,22 @@ public class PhotosViewModel extends AndroidViewModel {
   private PhotoRepository photoRepository;
   private VisitRepository visitRepository;
 
-  public LiveData<List<Photo>> photos;
+  private MutableLiveData<Boolean> feedSortByAsc = new MutableLiveData<>();
+  private PhotoFeed photoFeed;
+
+  public LiveData<PhotoFeed.Page> photos;
+
+  // Photos are sectioned on a single background thread, the fields below are only touched there
+  private final ExecutorService sectionExecutor = Executors.newSingleThreadExecutor();
+  private final List<SectionElement> sectionElements = new ArrayList<>();
+  private final SparseIntArray sectionIndices = new SparseIntArray();
+  private final SparseArray<String> visitTitles = new SparseArray<>();
+  private final Calendar calendar = Calendar.getInstance();
+  private int sectionedGeneration = -1;
+  private int sectionedCount = 0;
+  private boolean sectionedByVisit = false;
+
+  private final MediatorLiveData<SectionedPhotos> sectionedPhotos = new MediatorLiveData<>();
 
   /**
    * Constructor for PhotosViewModel
@@ -38,6 +70,42 @@ public class PhotosViewModel extends AndroidViewModel {
     photoRepository = new PhotoRepository(application);
     visitRepository = new VisitRepository(application);
     sortMode = R.id.by_date_desc;
+
+    // A new feed is needed whenever the order of the photos changes
+    photos = Transformations.switchMap(feedSortByAsc, sortByAsc -> {
+      if (photoFeed != null) {
+        photoFeed.close();
+      }
+
+      photoFeed = photoRepository.getPhotoFeed(sortByAsc);
+      return photoFeed.getPages();
+    });
+
+    // Every page of the feed is sectioned in the background before it reaches the grid
+    sectionedPhotos.addSource(photos, this::sectionPage);
+  }
+
+  /**
+   * Called when this ViewModel is no longer used and will be destroyed.
+   */
+  @Override
+  protected void onCleared() {
+    super.onCleared();
+
+    if (photoFeed != null) {
+      photoFeed.close();
+    }
+
+    sectionExecutor.shutdown();
+  }
+
+  /**
+   * Get the sectioned photos, ready to be displayed in the grid
+   *
+   * @return LiveData<SectionedPhotos> The sections and the photos in them
+   */
+  LiveData<SectionedPhotos> getSectionedPhotos() {
+    return sectionedPhotos;
   }
 
   /**
@@ -59,16 +127,6 @@ public class PhotosViewModel extends AndroidViewModel {
         isEmpty ? "" : "No photos yet " + new String(Character.toChars(0x1F60A)));
   }
 
-  /**
-   * Get the visit title of a photo
-   *
-   * @param id The primary key ID of the visit
-   * @return String The title of the visit
-   */
-  String getVisitTitle(long id) {
-    return visitRepository.getVisitTitle(id);
-  }
-
   /**
    * Check if the current sorting mode is by oldest date first
    *
@@ -101,19 +159,192 @@ public class PhotosViewModel extends AndroidViewModel {
   }
 
   /**
-   * Calls {@link PhotoRepository#getAllLivePhotosDesc()} to get all photos from database. Sets up
-   * an Observer to observe the viewmodel and calls this method if there is any change.
+   * Set the sorting mode. A new feed is loaded if the order of the photos has changed, otherwise
+   * the loaded photos are sectioned again.
+   *
+   * @param sortMode The ID of the sorting menu item
+   */
+  void setSortMode(int sortMode) {
+    if (this.sortMode == sortMode) {
+      return;
+    }
+
+    this.sortMode = sortMode;
+
+    if (feedSortByAsc.getValue() != null && feedSortByAsc.getValue() != isSortByAsc()) {
+      feedSortByAsc.setValue(isSortByAsc());
+    } else {
+      sectionPage(photos.getValue());
+    }
+  }
+
+  /**
+   * Calls {@link PhotoRepository#getPhotoFeed(boolean)} to start loading photos from database page
+   * by page. The feed is observed through <var>photos</var>.
    */
   void loadPhotos() {
-    photos = photoRepository.getAllLivePhotosDesc();
+    if (feedSortByAsc.getValue() == null) {
+      feedSortByAsc.setValue(isSortByAsc());
+    }
   }
 
   /**
-   * Calls {@link PhotoRepository#getAllPhotos()} to get all photos from database.
+   * Load the next page of photos, if any
+   */
+  void loadNextPage() {
+    if (photoFeed != null) {
+      photoFeed.loadNextPage();
+    }
+  }
+
+  /**
+   * Calls {@link PhotoRepository#getPhotosInBounds(LatLngBounds)} to get the photos inside a region
+   * of the map.
    *
-   * @return List<Photo> A list of photos
+   * @param bounds The region of the map
+   * @return ListenableFuture<List<Photo>> The future of the photos inside the region
    */
-  public List<Photo> loadPhotosForClusterMarker() {
-    return photoRepository.getAllPhotos();
+  public ListenableFuture<List<Photo>> loadPhotosInBounds(LatLngBounds bounds) {
+    return photoRepository.getPhotosInBounds(bounds);
+  }
+
+  /**
+   * Calls {@link PhotoRepository#getClustersInBounds(LatLngBounds, int)} to get the precomputed
+   * photo clusters inside a region of the map.
+   *
+   * @param bounds The region of the map
+   * @param zoom The zoom level of the map
+   * @return ListenableFuture<List<ClusterCell>> The future of the clusters inside the region
+   */
+  public ListenableFuture<List<ClusterCell>> loadClustersInBounds(LatLngBounds bounds, int zoom) {
+    return photoRepository.getClustersInBounds(bounds, zoom);
+  }
+
+  /**
+   * Section a page of the feed in the background and post the result. Only the photos that are new
+   * since the previous page are sectioned, unless the feed has been reloaded or the sorting mode
+   * has changed.
+   *
+   * @param page The latest {@link PhotoFeed.Page} of the feed
+   */
+  private void sectionPage(PhotoFeed.Page page) {
+    if (page == null) {
+      return;
+    }
+
+    final boolean byVisit = isSortByVisit();
+
+    sectionExecutor.execute(() -> {
+      if (page.generation != sectionedGeneration || byVisit != sectionedByVisit) {
+        sectionElements.clear();
+        sectionIndices.clear();
+        sectionedCount = 0;
+        sectionedGeneration = page.generation;
+        sectionedByVisit = byVisit;
+
+        // Titles are loaded again so that renamed or new visits are picked up
+        if (byVisit) {
+          loadVisitTitles();
+        }
+      }
+
+      sectionPhotos(page.photos.subList(sectionedCount, page.photos.size()), byVisit);
+      sectionedCount = page.photos.size();
+
+      sectionedPhotos.postValue(snapshot(page.hasMore));
+    });
+  }
+
+  /**
+   * Load the titles of all visits with photos with a single query
+   */
+  @WorkerThread
+  private void loadVisitTitles() {
+    visitTitles.clear();
+
+    for (VisitTitle visitTitle : visitRepository.getTitlesOfVisitsWithPhotos()) {
+      visitTitles.put(visitTitle.id, visitTitle.visitTitle);
+    }
+  }
+
+  /**
+   * Append photos into the sections by visit or by day. Photos that belong to an existing section
+   * are added to that section, the title of a section is only computed once.
+   *
+   * @param photos List of photos to be sectioned
+   * @param byVisit {@code true} to section the photos by visit, else by day
+   */
+  @WorkerThread
+  private void sectionPhotos(List<Photo> photos, boolean byVisit) {
+    for (Photo photo : photos) {
+      final int key;
+
+      if (byVisit) {
+        key = photo.visitId();
+      } else {
+        calendar.setTime(photo.date());
+        key = calendar.get(Calendar.YEAR) * 10000 + calendar.get(Calendar.MONTH) * 100
+            + calendar.get(Calendar.DAY_OF_MONTH);
+      }
+
+      int index = sectionIndices.get(key, -1);
+
+      if (index == -1) {
+        // Appended pages can hold photos of a visit created after the titles were loaded
+        if (byVisit && visitTitles.indexOfKey(key) < 0) {
+          loadVisitTitles();
+        }
+
+        sectionElements.add(new SectionElement(key, byVisit
+            ? visitTitles.get(key)
+            : DateHelper.regularFormat(photo.date())
+        ));
+        index = sectionElements.size() - 1;
+        sectionIndices.put(key, index);
+      }
+
+      sectionElements.get(index).addPhoto(photo);
+    }
+  }
+
+  /**
+   * Flatten the current sections into the arrays used by the grid
+   *
+   * @param hasMore {@code true} if the feed has more pages to load
+   * @return SectionedPhotos A snapshot of the current sections
+   */
+  @WorkerThread
+  private SectionedPhotos snapshot(boolean hasMore) {
+    final List<Photo> photoList = new ArrayList<>(sectionedCount);
+    final Section[] sections = new Section[sectionElements.size()];
+    int pos = 0;
+
+    for (int i = 0; i < sections.length; i++) {
+      SectionElement sectionElement = sectionElements.get(i);
+      sections[i] = new Section(pos, sectionElement.getKey(), sectionElement.getTitle());
+      pos += sectionElement.getPhotos().size();
+      photoList.addAll(sectionElement.getPhotos());
+    }
+
+    return new SectionedPhotos(photoList, sections, hasMore);
+  }
+
+  /**
+   * The photos of the feed with their sections, ready to be submitted to
+   * {@link SectionedGridRecyclerViewAdapter}
+   *
+   * @author Zer Jun Eng, Jia Hua Ng
+   */
+  static class SectionedPhotos {
+
+    final List<Photo> photos;
+    final Section[] sections;
+    final boolean hasMore;
+
+    SectionedPhotos(List<Photo> photos, Section[] sections, boolean hasMore) {
+      this.photos = photos;
+      this.sections = sections;
+      this.hasMore = hasMore;
+    }
   }
 }
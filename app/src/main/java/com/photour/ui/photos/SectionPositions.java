@@ -0,0 +1,83 @@
+package com.photour.ui.photos;
+
+import com.photour.ui.photos.SectionedGridRecyclerViewAdapter.Section;
+import java.util.Arrays;
+
+/**
+ * Index of the adapter positions of the section titles in {@link SectionedGridRecyclerViewAdapter}.
+ * Every lookup is a binary search over the title positions.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+final class SectionPositions {
+
+  static final int NO_POSITION = -1;
+  static final SectionPositions EMPTY = new SectionPositions(new Section[0]);
+
+  private final int[] sectionedPositions;
+
+  /**
+   * Constructor of SectionPositions
+   *
+   * @param sections Array of sections, sorted with their sectioned positions assigned
+   */
+  SectionPositions(Section[] sections) {
+    sectionedPositions = new int[sections.length];
+
+    for (int i = 0; i < sections.length; i++) {
+      sectionedPositions[i] = sections[i].sectionedPosition;
+    }
+  }
+
+  /**
+   * Sort the sections and assign the adapter position of each section title
+   *
+   * @param sections Array of sections
+   */
+  static void assign(Section[] sections) {
+    Arrays.sort(sections, (o, o1) -> Integer.compare(o.firstPosition, o1.firstPosition));
+
+    int offset = 0; // offset positions for the headers we're adding
+    for (Section section : sections) {
+      section.sectionedPosition = section.firstPosition + offset;
+      ++offset;
+    }
+  }
+
+  /**
+   * Get the index of the section whose title is at an adapter position
+   *
+   * @param sectionedPosition position in the adapter
+   * @return int Index of the section, or a negative value if the position is not a title
+   */
+  int sectionIndexOf(int sectionedPosition) {
+    return Arrays.binarySearch(sectionedPositions, sectionedPosition);
+  }
+
+  /**
+   * Checks if item in position is a title
+   *
+   * @param sectionedPosition position in the adapter
+   * @return boolean True if the item is a title
+   */
+  boolean isSectionHeader(int sectionedPosition) {
+    return sectionIndexOf(sectionedPosition) >= 0;
+  }
+
+  /**
+   * Convert an adapter position to the position of its photo
+   *
+   * @param sectionedPosition position in the adapter
+   * @return int Position of the photo, or {@link #NO_POSITION} if the position is a title
+   */
+  int toPosition(int sectionedPosition) {
+    final int index = sectionIndexOf(sectionedPosition);
+
+    if (index >= 0) {
+      return NO_POSITION;
+    }
+
+    // The insertion point is the number of titles before this position
+    return sectionedPosition - (-index - 1);
+  }
+}
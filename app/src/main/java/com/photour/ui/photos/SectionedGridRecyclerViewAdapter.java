@@ -1,15 +1,23 @@
 package com.photour.ui.photos;
 
 import android.content.Context;
-import android.util.SparseArray;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.databinding.DataBindingUtil;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.photour.databinding.FragmentPhotosSortBinding;
-import java.util.Arrays;
+import com.photour.model.Photo;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Adapter for handling sections and grid system on {@link PhotosFragment}
@@ -20,11 +28,20 @@ public class SectionedGridRecyclerViewAdapter extends
     RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
   private static final int SECTION_TYPE = 0;
+  private static final ExecutorService diffExecutor = Executors.newSingleThreadExecutor();
+
   private final Context mContext;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
   private int mSectionResourceId;
   private int mTextResourceId;
   private PhotoAdapter mBaseAdapter;
-  private SparseArray<Section> mSections = new SparseArray<>();
+  // Sections sorted by position, and the adapter position of each title for binary search
+  private Section[] mSections = new Section[0];
+  private SectionPositions mSectionPositions = SectionPositions.EMPTY;
+
+  // Sections and photos in adapter order, used as the old list when computing the next diff
+  private List<Object> mItems = Collections.emptyList();
+  private int maxScheduledGeneration = 0;
 
   /**
    * Constructor class of SectionedGridRecyclerViewAdapter
@@ -44,6 +61,7 @@ public class SectionedGridRecyclerViewAdapter extends
     mBaseAdapter = baseAdapter;
     mContext = context;
 
+    setHasStableIds(true);
     mBaseAdapter.registerAdapterDataObserver(createObserver());
 
     final GridLayoutManager layoutManager = (GridLayoutManager) (recyclerView.getLayoutManager());
@@ -84,8 +102,6 @@ public class SectionedGridRecyclerViewAdapter extends
     };
   }
 
-  ;
-
   /**
    * Called when RecyclerView needs a new RecyclerView.ViewHolder of the given type to represent an
    * item.
@@ -121,8 +137,10 @@ public class SectionedGridRecyclerViewAdapter extends
    */
   @Override
   public void onBindViewHolder(@NonNull RecyclerView.ViewHolder sectionViewHolder, int position) {
-    if (isSectionHeaderPosition(position)) {
-      Section section = mSections.get(position);
+    final int sectionIndex = mSectionPositions.sectionIndexOf(position);
+
+    if (sectionIndex >= 0) {
+      Section section = mSections[sectionIndex];
       ((SectionViewHolder) sectionViewHolder).fragmentPhotosSortBinding.setTitle(section);
       ((SectionViewHolder) sectionViewHolder).fragmentPhotosSortBinding.executePendingBindings();
     } else {
@@ -131,6 +149,33 @@ public class SectionedGridRecyclerViewAdapter extends
     }
   }
 
+  /**
+   * Called when a view created by this adapter has been recycled. Photos are passed on to
+   * mBaseAdapter.
+   *
+   * @param holder The ViewHolder for the view being recycled
+   */
+  @Override
+  public void onViewRecycled(@NonNull RecyclerView.ViewHolder holder) {
+    if (holder instanceof PhotoAdapter.ImageCard) {
+      mBaseAdapter.onViewRecycled((PhotoAdapter.ImageCard) holder);
+    }
+  }
+
+  /**
+   * Get the photo at a position of the grid
+   *
+   * @param position position of item
+   * @return Photo The photo, or null if the position is a title or out of the data set
+   */
+  Photo getPhoto(int position) {
+    if (position < 0 || position >= getItemCount() || isSectionHeaderPosition(position)) {
+      return null;
+    }
+
+    return mBaseAdapter.getItem(sectionedPositionToPosition(position));
+  }
+
   /**
    * Getter for item view type. Checks with SECTION_TYPE to see if said position is a title or item
    *
@@ -145,23 +190,91 @@ public class SectionedGridRecyclerViewAdapter extends
   }
 
   /**
-   * Accessor for sections array. Used to update data set
+   * Update the photos and sections. The difference with the current data set is computed on a
+   * background thread, then only the changed ranges are dispatched to the RecyclerView.
    *
-   * @param sections Array of sections
+   * @param photos The photos in grid order
+   * @param sections Array of sections, the first position of each section refers to
+   * <var>photos</var>
    */
-  void setSections(Section[] sections) {
-    mSections.clear();
+  void submit(List<Photo> photos, Section[] sections) {
+    final int runGeneration = ++maxScheduledGeneration;
+    final List<Object> oldItems = mItems;
 
-    Arrays.sort(sections, (o, o1) -> Integer.compare(o.firstPosition, o1.firstPosition));
+    // Fast path, nothing to diff against
+    if (oldItems.isEmpty() || photos.isEmpty()) {
+      final int oldSize = getItemCount();
+      SectionPositions.assign(sections);
+      apply(photos, sections, flatten(photos, sections));
+
+      if (oldSize > 0) {
+        notifyItemRangeRemoved(0, oldSize);
+      }
+      notifyItemRangeInserted(0, getItemCount());
+      return;
+    }
+
+    diffExecutor.execute(() -> {
+      SectionPositions.assign(sections);
+      final List<Object> newItems = flatten(photos, sections);
+      final DiffUtil.DiffResult result = DiffUtil
+          .calculateDiff(new SectionedDiffCallback(oldItems, newItems));
+
+      mainHandler.post(() -> {
+        // A newer data set has been submitted in the meantime
+        if (runGeneration != maxScheduledGeneration) {
+          return;
+        }
+
+        apply(photos, sections, newItems);
+        result.dispatchUpdatesTo(SectionedGridRecyclerViewAdapter.this);
+      });
+    });
+  }
+
+  /**
+   * Replace the current data set without notifying the RecyclerView
+   *
+   * @param photos The photos in grid order
+   * @param sections Array of sections with their sectioned positions assigned
+   * @param items Sections and photos in adapter order
+   */
+  private void apply(List<Photo> photos, Section[] sections, List<Object> items) {
+    mBaseAdapter.setItems(photos);
+    setSections(sections);
+    mItems = items;
+  }
+
+  /**
+   * Accessor for sections array. Used to update data set. The positions of the titles are indexed
+   * once here so that every lookup on the bind path is a binary search.
+   *
+   * @param sections Array of sections, sorted with their sectioned positions assigned
+   */
+  private void setSections(Section[] sections) {
+    mSections = sections;
+    mSectionPositions = new SectionPositions(sections);
+  }
 
-    int offset = 0; // offset positions for the headers we're adding
-    for (Section section : sections) {
-      section.sectionedPosition = section.firstPosition + offset;
-      mSections.append(section.sectionedPosition, section);
-      ++offset;
+  /**
+   * Merge the sections and photos into a single list in adapter order
+   *
+   * @param photos The photos in grid order
+   * @param sections Array of sorted sections
+   * @return List<Object> Sections and photos in adapter order
+   */
+  private static List<Object> flatten(List<Photo> photos, Section[] sections) {
+    if (photos.isEmpty()) {
+      return Collections.emptyList();
     }
 
-    notifyDataSetChanged();
+    final List<Object> items = new ArrayList<>(photos.size() + sections.length);
+    for (int i = 0; i < sections.length; i++) {
+      final int end = i + 1 < sections.length ? sections[i + 1].firstPosition : photos.size();
+      items.add(sections[i]);
+      items.addAll(photos.subList(sections[i].firstPosition, end));
+    }
+    return items;
   }
 
   /**
@@ -171,18 +284,7 @@ public class SectionedGridRecyclerViewAdapter extends
    * @return int position of next title
    */
   private int sectionedPositionToPosition(int sectionedPosition) {
-    if (isSectionHeaderPosition(sectionedPosition)) {
-      return RecyclerView.NO_POSITION;
-    }
-
-    int offset = 0;
-    for (int i = 0; i < mSections.size(); i++) {
-      if (mSections.valueAt(i).sectionedPosition > sectionedPosition) {
-        break;
-      }
-      --offset;
-    }
-    return sectionedPosition + offset;
+    return mSectionPositions.toPosition(sectionedPosition);
   }
 
   /**
@@ -192,7 +294,7 @@ public class SectionedGridRecyclerViewAdapter extends
    * @return boolean True if the item is a title
    */
   private boolean isSectionHeaderPosition(int position) {
-    return mSections.get(position) != null;
+    return mSectionPositions.isSectionHeader(position);
   }
 
   /**
@@ -203,11 +305,24 @@ public class SectionedGridRecyclerViewAdapter extends
    */
   @Override
   public long getItemId(int position) {
-    return isSectionHeaderPosition(position)
-        ? Integer.MAX_VALUE - mSections.indexOfKey(position)
+    final int sectionIndex = mSectionPositions.sectionIndexOf(position);
+
+    return sectionIndex >= 0
+        ? sectionId(mSections[sectionIndex])
         : mBaseAdapter.getItemId(sectionedPositionToPosition(position));
   }
 
+  /**
+   * Stable id of a section, from its key. Ids are negative so that they never clash with photo
+   * ids.
+   *
+   * @param section The section
+   * @return long ID of the section
+   */
+  private static long sectionId(Section section) {
+    return -1L - (section.key & 0xFFFFFFFFL);
+  }
+
   /**
    * Getter for data set size
    *
@@ -215,7 +330,7 @@ public class SectionedGridRecyclerViewAdapter extends
    */
   @Override
   public int getItemCount() {
-    return mBaseAdapter.getItemCount() > 0 ? mBaseAdapter.getItemCount() + mSections.size() : 0;
+    return mBaseAdapter.getItemCount() > 0 ? mBaseAdapter.getItemCount() + mSections.length : 0;
   }
 
   /**
@@ -234,6 +349,59 @@ public class SectionedGridRecyclerViewAdapter extends
     }
   }
 
+  /**
+   * Callback for calculating the difference between two lists of sections and photos
+   *
+   * @author Zer Jun Eng, Jia Hua Ng
+   */
+  private static class SectionedDiffCallback extends DiffUtil.Callback {
+
+    private final List<Object> oldItems;
+    private final List<Object> newItems;
+
+    SectionedDiffCallback(List<Object> oldItems, List<Object> newItems) {
+      this.oldItems = oldItems;
+      this.newItems = newItems;
+    }
+
+    @Override
+    public int getOldListSize() {
+      return oldItems.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+      return newItems.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+      final Object oldItem = oldItems.get(oldItemPosition);
+      final Object newItem = newItems.get(newItemPosition);
+
+      if (oldItem instanceof Section && newItem instanceof Section) {
+        return ((Section) oldItem).key == ((Section) newItem).key;
+      } else if (oldItem instanceof Photo && newItem instanceof Photo) {
+        return ((Photo) oldItem).id() == ((Photo) newItem).id();
+      }
+
+      return false;
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+      final Object oldItem = oldItems.get(oldItemPosition);
+      final Object newItem = newItems.get(newItemPosition);
+
+      // A section only shows its title, which changes when its visit is renamed
+      if (oldItem instanceof Section) {
+        return Objects.equals(((Section) oldItem).title, ((Section) newItem).title);
+      }
+
+      return oldItem.equals(newItem);
+    }
+  }
+
   /**
    * Class for section
    *
@@ -243,10 +411,12 @@ public class SectionedGridRecyclerViewAdapter extends
 
     int firstPosition;
     int sectionedPosition;
+    int key;
     String title;
 
-    Section(int firstPosition, String title) {
+    Section(int firstPosition, int key, String title) {
       this.firstPosition = firstPosition;
+      this.key = key;
       this.title = title;
     }
 
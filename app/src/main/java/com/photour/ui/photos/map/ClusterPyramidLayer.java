@@ -0,0 +1,209 @@
+package com.photour.ui.photos.map;
+
+import android.content.Context;
+import androidx.collection.LongSparseArray;
+import com.google.android.libraries.maps.CameraUpdateFactory;
+import com.google.android.libraries.maps.GoogleMap;
+import com.google.android.libraries.maps.model.BitmapDescriptor;
+import com.google.android.libraries.maps.model.BitmapDescriptorFactory;
+import com.google.android.libraries.maps.model.Marker;
+import com.google.android.libraries.maps.model.MarkerOptions;
+import com.google.maps.android.ui.IconGenerator;
+import com.photour.model.ClusterCell;
+import com.photour.ui.photos.map.MarkerIconLoader.IconListener;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Draws the cells of the photo cluster pyramid as markers. A cell with a single photo shows the
+ * photo, other cells show the number of photos in them.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+class ClusterPyramidLayer {
+
+  // Zoom levels to zoom in by when a cell is clicked
+  private static final int CLICK_ZOOM_STEP = 2;
+
+  private final GoogleMap googleMap;
+  private final IconGenerator countIconGenerator;
+  private final MarkerIconLoader iconLoader;
+
+  // Markers of the cells on the map, keyed by cell
+  private LongSparseArray<Marker> markers = new LongSparseArray<>();
+  // Listeners of the photo icons still loading, keyed by cell
+  private final LongSparseArray<IconListener> iconListeners = new LongSparseArray<>();
+  private int shownZoom = -1;
+
+  /**
+   * Constructor of {@link ClusterPyramidLayer}
+   *
+   * @param context Context of the map
+   * @param googleMap The map to draw on
+   * @param iconLoader The loader of the photo icons
+   */
+  ClusterPyramidLayer(Context context, GoogleMap googleMap, MarkerIconLoader iconLoader) {
+    this.googleMap = googleMap;
+    this.iconLoader = iconLoader;
+
+    countIconGenerator = new IconGenerator(context);
+    countIconGenerator.setStyle(IconGenerator.STYLE_PURPLE);
+  }
+
+  /**
+   * Show the cells of a zoom level. Markers of cells that are no longer given are removed, markers
+   * of cells that have changed are updated.
+   *
+   * @param zoom The zoom level of the cells
+   * @param cells The cells to show
+   */
+  void show(int zoom, List<ClusterCell> cells) {
+    if (zoom != shownZoom) {
+      clear();
+      shownZoom = zoom;
+    }
+
+    final LongSparseArray<Marker> shown = new LongSparseArray<>(cells.size());
+
+    for (ClusterCell cell : cells) {
+      final long key = key(cell);
+      Marker marker = markers.get(key);
+
+      // The tag is set before the icon, a cached icon is delivered immediately and is only set
+      // if the marker already shows its cell
+      if (marker == null) {
+        marker = googleMap.addMarker(new MarkerOptions().position(cell.getPosition()));
+        marker.setTag(cell);
+        setIcon(marker, cell);
+      } else {
+        markers.remove(key);
+        ClusterCell oldCell = (ClusterCell) marker.getTag();
+        marker.setTag(cell);
+
+        if (oldCell == null || oldCell.photoCount != cell.photoCount
+            || !Objects.equals(oldCell.representativePhotoId, cell.representativePhotoId)) {
+          cancelIcon(oldCell);
+          marker.setPosition(cell.getPosition());
+          setIcon(marker, cell);
+        }
+      }
+
+      shown.put(key, marker);
+    }
+
+    // Markers left are the cells that have gone out of the region
+    for (int i = 0; i < markers.size(); i++) {
+      cancelIcon((ClusterCell) markers.valueAt(i).getTag());
+      markers.valueAt(i).remove();
+    }
+
+    markers = shown;
+  }
+
+  /**
+   * Remove every marker of this layer from the map
+   */
+  void clear() {
+    for (int i = 0; i < markers.size(); i++) {
+      cancelIcon((ClusterCell) markers.valueAt(i).getTag());
+      markers.valueAt(i).remove();
+    }
+
+    markers.clear();
+    iconListeners.clear();
+    shownZoom = -1;
+  }
+
+  /**
+   * Zoom into a cell when its marker is clicked
+   *
+   * @param marker The marker that is clicked
+   * @return boolean {@code true} if the marker belongs to this layer and the click is handled
+   */
+  boolean onMarkerClick(Marker marker) {
+    if (!(marker.getTag() instanceof ClusterCell)) {
+      return false;
+    }
+
+    googleMap.animateCamera(CameraUpdateFactory
+        .newLatLngZoom(marker.getPosition(), shownZoom + CLICK_ZOOM_STEP));
+
+    return true;
+  }
+
+  /**
+   * Set the icon of the marker, the photo of a single photo cell is loaded asynchronously
+   *
+   * @param marker The marker of the cell
+   * @param cell The cell
+   */
+  private void setIcon(Marker marker, ClusterCell cell) {
+    if (!isPhotoCell(cell)) {
+      marker.setIcon(BitmapDescriptorFactory
+          .fromBitmap(countIconGenerator.makeIcon(String.valueOf(cell.photoCount))));
+      return;
+    }
+
+    final BitmapDescriptor icon = iconLoader.getCachedIcon(cell.representativePhotoId);
+    marker.setIcon(icon != null ? icon : iconLoader.getPlaceholder());
+
+    if (icon == null) {
+      final int photoId = cell.representativePhotoId;
+      final long key = key(cell);
+
+      final IconListener listener = loaded -> {
+        iconListeners.remove(key);
+
+        // The cell of the marker might have changed in the meantime
+        final ClusterCell shownCell = (ClusterCell) marker.getTag();
+
+        if (shownCell != null && isPhotoCell(shownCell)
+            && shownCell.representativePhotoId == photoId) {
+          marker.setIcon(loaded);
+        }
+      };
+
+      // Stored first, a cached thumbnail calls the listener back immediately
+      iconListeners.put(key, listener);
+      iconLoader.load(photoId, cell.file_path, listener);
+    }
+  }
+
+  /**
+   * Cancel the loading photo of a cell whose marker is removed or changed
+   *
+   * @param cell The cell, may be null
+   */
+  private void cancelIcon(ClusterCell cell) {
+    if (cell == null || !isPhotoCell(cell)) {
+      return;
+    }
+
+    final IconListener listener = iconListeners.get(key(cell));
+
+    if (listener != null) {
+      iconListeners.remove(key(cell));
+      iconLoader.cancel(cell.representativePhotoId, listener);
+    }
+  }
+
+  /**
+   * Check whether a cell is shown as the photo of its only photo
+   *
+   * @param cell The cell
+   * @return boolean {@code true} if the cell has a single photo with a known file path
+   */
+  private static boolean isPhotoCell(ClusterCell cell) {
+    return cell.photoCount == 1 && cell.representativePhotoId != null && cell.file_path != null;
+  }
+
+  /**
+   * Get the key of a cell
+   *
+   * @param cell The cell
+   * @return long The key made of the column and the row of the cell
+   */
+  private static long key(ClusterCell cell) {
+    return ((long) cell.cellX << 32) | (cell.cellY & 0xFFFFFFFFL);
+  }
+}
@@ -0,0 +1,224 @@
+package com.photour.ui.photos.map;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+import android.util.SparseArray;
+import android.view.ViewGroup.LayoutParams;
+import android.widget.ImageView;
+import com.google.android.libraries.maps.model.BitmapDescriptor;
+import com.google.android.libraries.maps.model.BitmapDescriptorFactory;
+import com.google.maps.android.ui.IconGenerator;
+import com.photour.MainActivity;
+import com.photour.R;
+import com.photour.database.ImageMetadataRepository;
+import com.photour.helper.BitmapHelper;
+import com.photour.task.ImageFile;
+import com.photour.task.ImageLoader;
+import com.photour.task.ImageLoader.Priority;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the photo icons of the map markers. Icons are cached by photo ID, requests for a photo that
+ * is already being decoded share the same decode, and thumbnails are decoded by {@link ImageLoader}
+ * in the marker lane, behind the photos on screen in the other fragments. Every method must be
+ * called on the main thread.
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+class MarkerIconLoader {
+
+  private static final int MAX_ICONS = 256;
+  private static final int THUMBNAIL_SIZE = 50;
+  private static final String MARKER_KEY = "marker:";
+
+  private final Context context;
+  private final ImageMetadataRepository metadataRepository;
+  private final IconGenerator iconGenerator;
+  private final ImageView imageView;
+  private final BitmapDescriptor placeholder;
+
+  private final LruCache<Integer, BitmapDescriptor> icons = new LruCache<>(MAX_ICONS);
+  private final SparseArray<Request> requests = new SparseArray<>();
+
+  /**
+   * Constructor of {@link MarkerIconLoader}
+   *
+   * @param context The {@link MainActivity}
+   */
+  MarkerIconLoader(Context context) {
+    this.context = context;
+    this.metadataRepository = new ImageMetadataRepository(context.getApplicationContext());
+
+    int dimension = (int) context.getResources().getDimension(R.dimen.custom_photo_marker);
+    int padding = (int) context.getResources().getDimension(R.dimen.custom_photo_padding);
+
+    imageView = new ImageView(context);
+    imageView.setLayoutParams(new LayoutParams(dimension, dimension));
+    imageView.setPadding(padding, padding, padding, padding);
+    iconGenerator = new IconGenerator(context);
+    iconGenerator.setContentView(imageView);
+
+    imageView.setImageResource(R.drawable.placeholder);
+    placeholder = BitmapDescriptorFactory.fromBitmap(iconGenerator.makeIcon());
+  }
+
+  /**
+   * Get the icon shown while the photo of a marker is loading
+   *
+   * @return BitmapDescriptor The placeholder icon
+   */
+  BitmapDescriptor getPlaceholder() {
+    return placeholder;
+  }
+
+  /**
+   * Get the icon of a photo if it is in the cache
+   *
+   * @param photoId The ID of the photo
+   * @return BitmapDescriptor The icon, or null if it has not been loaded
+   */
+  BitmapDescriptor getCachedIcon(int photoId) {
+    return icons.get(photoId);
+  }
+
+  /**
+   * Load the icon of a photo. The listener is called immediately if the icon is cached, otherwise
+   * once the photo has been decoded, unless it is cancelled with
+   * {@link #cancel(int, IconListener)}.
+   *
+   * @param photoId The ID of the photo
+   * @param filePath The file path of the photo
+   * @param listener The listener to be called with the icon
+   */
+  void load(int photoId, String filePath, IconListener listener) {
+    final BitmapDescriptor icon = icons.get(photoId);
+
+    if (icon != null) {
+      listener.onIconLoaded(icon);
+      return;
+    }
+
+    // Join the decode that is already running for this photo
+    Request request = requests.get(photoId);
+
+    if (request != null) {
+      request.listeners.add(listener);
+      return;
+    }
+
+    // The photo grid may already have a thumbnail of this photo in memory
+    final Bitmap thumbnail = ((MainActivity) context).cacheHelper
+        .getBitmapFromMemCache(String.valueOf(photoId));
+
+    if (thumbnail != null) {
+      listener.onIconLoaded(makeIcon(photoId, thumbnail));
+      return;
+    }
+
+    final Request newRequest = new Request();
+    newRequest.listeners.add(listener);
+    requests.put(photoId, newRequest);
+
+    // A cancelled request is never called back
+    newRequest.imageRequest = ImageLoader.getInstance().load(MARKER_KEY + photoId,
+        Priority.MARKER, () -> decodeThumbnail(filePath), bitmap -> {
+          requests.remove(photoId);
+
+          if (bitmap != null) {
+            final BitmapDescriptor icon = makeIcon(photoId, bitmap);
+
+            for (IconListener waiting : newRequest.listeners) {
+              waiting.onIconLoaded(icon);
+            }
+          }
+        });
+  }
+
+  /**
+   * Decode the thumbnail of a marker. Runs on a decoder thread.
+   *
+   * @param filePath The file path of the photo
+   * @return Bitmap The thumbnail, or null if the photo cannot be decoded
+   */
+  private Bitmap decodeThumbnail(String filePath) {
+    try (ImageFile file = ImageFile.open(filePath)) {
+      return BitmapHelper.decodeThumbnail(file, metadataRepository.getMetadata(file),
+          THUMBNAIL_SIZE);
+    } catch (IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  /**
+   * Cancel the load of a photo for one listener, used when its marker has left the map. Once no
+   * listener is waiting for the photo, a decode that has not started yet is dropped from the queue.
+   *
+   * @param photoId The ID of the photo
+   * @param listener The listener given to {@link #load(int, String, IconListener)}
+   */
+  void cancel(int photoId, IconListener listener) {
+    final Request request = requests.get(photoId);
+
+    if (request == null || !request.listeners.remove(listener)) {
+      return;
+    }
+
+    // Other markers might still be waiting for the same photo
+    if (request.listeners.isEmpty()) {
+      requests.remove(photoId);
+      request.imageRequest.cancel();
+    }
+  }
+
+  /**
+   * Cancel every pending load
+   */
+  void cancelAll() {
+    for (int i = 0; i < requests.size(); i++) {
+      requests.valueAt(i).imageRequest.cancel();
+    }
+
+    requests.clear();
+  }
+
+  /**
+   * Draw the icon of a photo and cache it
+   *
+   * @param photoId The ID of the photo
+   * @param bitmap The thumbnail of the photo
+   * @return BitmapDescriptor The icon
+   */
+  private BitmapDescriptor makeIcon(int photoId, Bitmap bitmap) {
+    imageView.setImageBitmap(bitmap);
+    final BitmapDescriptor icon = BitmapDescriptorFactory.fromBitmap(iconGenerator.makeIcon());
+    icons.put(photoId, icon);
+
+    return icon;
+  }
+
+  /**
+   * A decode in progress and the listeners waiting for it
+   */
+  private static class Request {
+
+    private ImageLoader.Request imageRequest;
+    private final List<IconListener> listeners = new ArrayList<>(1);
+  }
+
+  /**
+   * An interface to handle the callback when the icon of a marker has been loaded
+   */
+  interface IconListener {
+
+    /**
+     * Called on the main thread with the icon of the photo
+     *
+     * @param icon The icon of the photo
+     */
+    void onIconLoaded(BitmapDescriptor icon);
+  }
+}
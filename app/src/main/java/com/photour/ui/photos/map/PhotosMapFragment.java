@@ -4,16 +4,14 @@ import static com.photour.helper.PermissionHelper.STORAGE_PERMISSION_CODE;
 
 import android.Manifest;
 import android.app.Activity;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.Handler;
 import android.util.DisplayMetrics;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.ViewGroup.LayoutParams;
-import android.widget.ImageView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
@@ -23,7 +21,8 @@ import com.google.android.libraries.maps.CameraUpdateFactory;
 import com.google.android.libraries.maps.GoogleMap;
 import com.google.android.libraries.maps.OnMapReadyCallback;
 import com.google.android.libraries.maps.SupportMapFragment;
-import com.google.android.libraries.maps.model.BitmapDescriptorFactory;
+import com.google.android.libraries.maps.model.BitmapDescriptor;
+import com.google.android.libraries.maps.model.LatLng;
 import com.google.android.libraries.maps.model.LatLngBounds;
 import com.google.android.libraries.maps.model.Marker;
 import com.google.android.libraries.maps.model.MarkerOptions;
@@ -34,15 +33,15 @@ import com.google.maps.android.clustering.ClusterManager.OnClusterClickListener;
 import com.google.maps.android.clustering.ClusterManager.OnClusterItemClickListener;
 import com.google.maps.android.clustering.algo.NonHierarchicalViewBasedAlgorithm;
 import com.google.maps.android.clustering.view.DefaultClusterRenderer;
-import com.google.maps.android.ui.IconGenerator;
 import com.photour.R;
+import com.photour.database.ClusterPyramid;
+import com.photour.helper.FutureHelper;
 import com.photour.helper.PermissionHelper;
 import com.photour.model.Photo;
-import com.photour.task.ClusterTask;
 import com.photour.ui.photos.PhotosFragment;
 import com.photour.ui.photos.PhotosViewModel;
+import com.photour.ui.photos.map.MarkerIconLoader.IconListener;
 import com.photour.ui.photos.map.PhotosMapFragmentDirections.ActionViewPhotos;
-import java.util.List;
 
 /**
  * Fragment to create when the map icon has been clicked on {@link PhotosFragment}, show "location
@@ -54,6 +53,10 @@ public class PhotosMapFragment extends Fragment implements OnMapReadyCallback,
     OnClusterClickListener<Photo>, OnClusterItemClickListener<Photo> {
 
   private static final String[] PERMISSIONS_REQUIRED = {Manifest.permission.WRITE_EXTERNAL_STORAGE};
+
+  // Fraction of the visible region added on every side when querying photos
+  private static final double VIEWPORT_MARGIN = 0.5;
+
   private PermissionHelper permissionHelper;
 
   private PhotosViewModel photosViewModel;
@@ -62,6 +65,14 @@ public class PhotosMapFragment extends Fragment implements OnMapReadyCallback,
 
   private GoogleMap googleMap;
   private ClusterManager<Photo> clusterManager;
+  private ClusterPyramidLayer pyramidLayer;
+  private MarkerIconLoader iconLoader;
+
+  // Photos in the cluster manager, keyed by ID
+  private SparseArray<Photo> loadedPhotos = new SparseArray<>();
+  // Listeners of the photo icons still loading, keyed by photo ID
+  private SparseArray<IconListener> iconListeners = new SparseArray<>();
+  private int boundsRequest = 0;
 
   /**
    * Called to do initial creation of a fragment.  This is called after {@link #onAttach(Activity)}
@@ -130,6 +141,18 @@ public class PhotosMapFragment extends Fragment implements OnMapReadyCallback,
     super.onPause();
   }
 
+  /**
+   * Called when the fragment is no longer in use. Pending marker icons are cancelled.
+   */
+  @Override
+  public void onDestroy() {
+    super.onDestroy();
+
+    if (iconLoader != null) {
+      iconLoader.cancelAll();
+    }
+  }
+
   /**
    * Prepare the Fragment host's standard options menu to be displayed.
    *
@@ -197,26 +220,15 @@ public class PhotosMapFragment extends Fragment implements OnMapReadyCallback,
   }
 
   /**
-   * Draws photos inside markers (using IconGenerator) When there are multiple photos in the
-   * cluster, draw multiple photos (using MultiDrawable)
+   * Draws photos inside markers, the icons are loaded by {@link MarkerIconLoader}. When there are
+   * multiple photos in the cluster, draw the number of photos.
    *
    * @author Zer Jun Eng, Jia Hua Ng
    */
   private class PhotoRenderer extends DefaultClusterRenderer<Photo> {
 
-    private final IconGenerator iconGenerator = new IconGenerator(activity);
-    private final ImageView imageView;
-
     PhotoRenderer() {
       super(activity, googleMap, clusterManager);
-      int dimension = (int) getResources().getDimension(R.dimen.custom_photo_marker);
-
-      int padding = (int) getResources().getDimension(R.dimen.custom_photo_padding);
-
-      imageView = new ImageView(activity);
-      imageView.setLayoutParams(new LayoutParams(dimension, dimension));
-      imageView.setPadding(padding, padding, padding, padding);
-      iconGenerator.setContentView(imageView);
     }
 
     /**
@@ -224,8 +236,9 @@ public class PhotosMapFragment extends Fragment implements OnMapReadyCallback,
      */
     @Override
     protected void onBeforeClusterItemRendered(Photo item, MarkerOptions markerOptions) {
-      // Draw a placeholder layout first
-      markerOptions.icon(BitmapDescriptorFactory.fromBitmap(iconGenerator.makeIcon()));
+      // Use the cached icon if the photo has been shown before, a placeholder otherwise
+      final BitmapDescriptor icon = iconLoader.getCachedIcon(item.id());
+      markerOptions.icon(icon != null ? icon : iconLoader.getPlaceholder());
     }
 
     /**
@@ -236,10 +249,28 @@ public class PhotosMapFragment extends Fragment implements OnMapReadyCallback,
      */
     @Override
     protected void onClusterItemRendered(Photo item, Marker marker) {
-      // Create an async task to update the photo on the marker
-      new ClusterTask(imageView, () ->
-          marker.setIcon(BitmapDescriptorFactory.fromBitmap(iconGenerator.makeIcon()))
-      ).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, item.filePath());
+      if (iconLoader.getCachedIcon(item.id()) != null) {
+        return;
+      }
+
+      final IconListener previous = iconListeners.get(item.id());
+      final IconListener listener = icon -> {
+        iconListeners.remove(item.id());
+
+        // The photo might have been clustered again while its icon was loading
+        if (getMarker(item) == marker) {
+          marker.setIcon(icon);
+        }
+      };
+
+      // Stored first, a cached thumbnail calls the listener back immediately
+      iconListeners.put(item.id(), listener);
+      iconLoader.load(item.id(), item.filePath(), listener);
+
+      // The marker replaces the one the photo had before, the decode is kept for the new listener
+      if (previous != null) {
+        iconLoader.cancel(item.id(), previous);
+      }
     }
 
     /**
@@ -309,44 +340,164 @@ public class PhotosMapFragment extends Fragment implements OnMapReadyCallback,
     activity.getWindowManager().getDefaultDisplay().getMetrics(metrics);
 
     // Initialize the manager with the context and the map. Set algorithm to enable lazy load
+    iconLoader = new MarkerIconLoader(activity);
     clusterManager = new ClusterManager<>(activity, googleMap);
     clusterManager.setRenderer(new PhotoRenderer());
     clusterManager.setAlgorithm(
         new NonHierarchicalViewBasedAlgorithm<>(metrics.widthPixels, metrics.heightPixels));
 
-    // Register click listener
-    googleMap.setOnCameraIdleListener(clusterManager);
-    googleMap.setOnMarkerClickListener(clusterManager);
+    // Zoomed out views show the precomputed clusters instead of the photos
+    pyramidLayer = new ClusterPyramidLayer(activity, googleMap, iconLoader);
+
+    // Register click listener. Photos are loaded for the new region whenever the camera stops
+    googleMap.setOnCameraIdleListener(() -> {
+      clusterManager.onCameraIdle();
+      loadVisibleRegion();
+    });
+    googleMap.setOnMarkerClickListener(marker ->
+        pyramidLayer.onMarkerClick(marker) || clusterManager.onMarkerClick(marker));
     clusterManager.setOnClusterClickListener(this);
     clusterManager.setOnClusterItemClickListener(this);
 
-    // Add items
-    addPhotosToCluster();
-    clusterManager.cluster();
+    // Add the photos of the initial region
+    loadedPhotos = new SparseArray<>();
+    loadVisibleRegion();
+  }
+
+  /**
+   * Load the visible region of the map. Up to {@link ClusterPyramid#MAX_ZOOM} the precomputed
+   * clusters are shown, so the number of markers does not grow with the number of photos. Beyond
+   * that, the photos themselves are clustered by the cluster manager.
+   */
+  private void loadVisibleRegion() {
+    final int zoom = (int) googleMap.getCameraPosition().zoom;
+
+    if (zoom > ClusterPyramid.MAX_ZOOM) {
+      pyramidLayer.clear();
+      loadVisiblePhotos();
+      return;
+    }
+
+    if (loadedPhotos.size() > 0) {
+      iconLoader.cancelAll();
+      iconListeners.clear();
+      clusterManager.clearItems();
+      clusterManager.cluster();
+      loadedPhotos = new SparseArray<>();
+    }
+
+    loadVisibleClusters(zoom);
   }
 
   /**
-   * Retrive photos from database, then add them into the cluster manager
+   * Query the clusters of the pyramid inside the visible region of the map, plus a margin on every
+   * side, and show them
+   *
+   * @param zoom The zoom level of the map
+   */
+  private void loadVisibleClusters(int zoom) {
+    final int request = ++boundsRequest;
+    final LatLngBounds bounds = expandBounds(
+        googleMap.getProjection().getVisibleRegion().latLngBounds);
+
+    FutureHelper.addCallback(photosViewModel.loadClustersInBounds(bounds, zoom), activity,
+        cells -> {
+          // Drop the result if the camera has moved again since the query was made
+          if (cells == null || request != boundsRequest || !isAdded()) {
+            return;
+          }
+
+          pyramidLayer.show(zoom, cells);
+        });
+  }
+
+  /**
+   * Query the photos inside the visible region of the map, plus a margin on every side so that
+   * small camera moves do not need a new query. Photos that have left the region are removed from
+   * the cluster manager, new ones are added.
+   */
+  private void loadVisiblePhotos() {
+    final int request = ++boundsRequest;
+    final LatLngBounds bounds = expandBounds(
+        googleMap.getProjection().getVisibleRegion().latLngBounds);
+
+    FutureHelper.addCallback(photosViewModel.loadPhotosInBounds(bounds), activity, photos -> {
+      // Drop the result if the camera has moved again since the query was made
+      if (photos == null || request != boundsRequest || !isAdded()) {
+        return;
+      }
+
+      final SparseArray<Photo> visiblePhotos = new SparseArray<>(photos.size());
+
+      for (Photo photo : photos) {
+        visiblePhotos.put(photo.id(), photo);
+
+        if (loadedPhotos.get(photo.id()) == null) {
+          clusterManager.addItem(photo);
+        }
+      }
+
+      for (int i = 0; i < loadedPhotos.size(); i++) {
+        if (visiblePhotos.get(loadedPhotos.keyAt(i)) == null) {
+          cancelIcon(loadedPhotos.keyAt(i));
+          clusterManager.removeItem(loadedPhotos.valueAt(i));
+        }
+      }
+
+      loadedPhotos = visiblePhotos;
+      clusterManager.cluster();
+    });
+  }
+
+  /**
+   * Cancel the loading icon of a photo whose marker is removed or replaced
+   *
+   * @param photoId The ID of the photo
+   */
+  private void cancelIcon(int photoId) {
+    final IconListener listener = iconListeners.get(photoId);
+
+    if (listener != null) {
+      iconListeners.remove(photoId);
+      iconLoader.cancel(photoId, listener);
+    }
+  }
+
+  /**
+   * Expand the bounds by {@link #VIEWPORT_MARGIN} of its size on every side
+   *
+   * @param bounds The visible region of the map
+   * @return LatLngBounds The expanded bounds
    */
-  private void addPhotosToCluster() {
-    List<Photo> photos = photosViewModel.loadPhotosForClusterMarker();
+  private static LatLngBounds expandBounds(LatLngBounds bounds) {
+    final double latSpan = bounds.northeast.latitude - bounds.southwest.latitude;
+    double lngSpan = bounds.northeast.longitude - bounds.southwest.longitude;
+
+    // The visible region crosses the 180th meridian
+    if (lngSpan < 0) {
+      lngSpan += 360;
+    }
+
+    final double south = Math.max(-90, bounds.southwest.latitude - latSpan * VIEWPORT_MARGIN);
+    final double north = Math.min(90, bounds.northeast.latitude + latSpan * VIEWPORT_MARGIN);
 
-    for (Photo photo : photos) {
-      clusterManager.addItem(photo);
+    // The whole world is visible
+    if (lngSpan * (1 + 2 * VIEWPORT_MARGIN) >= 360) {
+      return new LatLngBounds(new LatLng(south, -180), new LatLng(north, 180));
     }
 
-//    Date today = new Date();
-//
-//    for (int i = 0; i < 10000; i++) {
-//      // /storage/emulated/0/Pictures/Photour/IMG_20191129_175157_879.jpg
-//      // /storage/emulated/0/Pictures/Screenshots/Screenshot_20191126_121114_com.szckhd.jwgly.azfanti.jpg
-//      clusterManager.addItem(
-//          Photo.create(0, 0, "/storage/emulated/0/Pictures/Photour/IMG_20191129_175157_879.jpg",
-//              today, new LatLng(
-//                  ThreadLocalRandom.current().nextDouble(53.0, 53.5 + 1),
-//                  ThreadLocalRandom.current().nextDouble(-1.5, -1.4 + 1)), null)
-//      );
-//    }
+    return new LatLngBounds(
+        new LatLng(south, wrapLongitude(bounds.southwest.longitude - lngSpan * VIEWPORT_MARGIN)),
+        new LatLng(north, wrapLongitude(bounds.northeast.longitude + lngSpan * VIEWPORT_MARGIN)));
   }
 
+  /**
+   * Wrap a longitude into the range [-180, 180)
+   *
+   * @param longitude The longitude in degrees
+   * @return double The wrapped longitude
+   */
+  private static double wrapLongitude(double longitude) {
+    return ((longitude + 180) % 360 + 360) % 360 - 180;
+  }
 }
@@ -2,14 +2,20 @@ package com.photour.ui.settings;
 
 import android.app.Activity;
 import android.os.Bundle;
+import android.os.Environment;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.preference.Preference;
 import androidx.preference.PreferenceFragmentCompat;
 import androidx.preference.PreferenceScreen;
 import com.photour.R;
+import com.photour.helper.PermissionHelper;
+import com.photour.helper.ToastHelper;
+import com.photour.service.MediaImportService;
+import java.io.File;
 
 /**
  * Fragment that display the settings of the application
@@ -18,6 +24,8 @@ import com.photour.R;
  */
 public class SettingsFragment extends PreferenceFragmentCompat {
 
+  private PermissionHelper permissionHelper;
+
   /**
    * Called to do initial creation of a fragment.  This is called after {@link #onAttach(Activity)}
    * and before {@link #onCreateView(LayoutInflater, ViewGroup, Bundle)}.
@@ -29,6 +37,7 @@ public class SettingsFragment extends PreferenceFragmentCompat {
   public void onCreate(@Nullable Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
     setHasOptionsMenu(true);
+    permissionHelper = PermissionHelper.getStoragePermissionHelper(getActivity(), this);
   }
 
   /**
@@ -42,6 +51,58 @@ public class SettingsFragment extends PreferenceFragmentCompat {
   @Override
   public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
     setPreferencesFromResource(R.xml.fragment_settings, rootKey);
+
+    final Preference importPreference = findPreference("import_camera_roll");
+
+    if (importPreference != null) {
+      importPreference.setOnPreferenceClickListener(preference -> {
+        importCameraRoll();
+        return true;
+      });
+    }
+  }
+
+  /**
+   * Import the photos of the camera roll in the background, once the storage permission has been
+   * granted. Only the photos added since the last import are read.
+   */
+  private void importCameraRoll() {
+    permissionHelper.checkStoragePermission(this::startImport);
+  }
+
+  /**
+   * Start importing the camera roll. Requires the storage permission.
+   */
+  private void startImport() {
+    final File cameraRoll = Environment
+        .getExternalStoragePublicDirectory(Environment.DIRECTORY_DCIM);
+
+    if (!cameraRoll.isDirectory() || !cameraRoll.canRead()) {
+      ToastHelper.tShort(requireActivity(), "Camera roll not found");
+      return;
+    }
+
+    MediaImportService.start(requireContext(), cameraRoll.getPath());
+    ToastHelper.tShort(requireActivity(), "Importing photos in the background");
+  }
+
+  /**
+   * Callback for the result from requesting permissions. Import the camera roll if the storage
+   * permission has been granted.
+   *
+   * @param requestCode The request code passed in {@link #requestPermissions(String[], int)}.
+   * @param permissions The requested permissions. Never null.
+   * @param grantResults The grant results for the corresponding permissions. Never null.
+   */
+  @Override
+  public void onRequestPermissionsResult(
+      int requestCode,
+      @NonNull String[] permissions,
+      @NonNull int[] grantResults
+  ) {
+    super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+
+    permissionHelper.onRequestPermissionsResult(grantResults, this::startImport);
   }
 
   /**
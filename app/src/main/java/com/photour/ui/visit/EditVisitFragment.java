@@ -14,7 +14,6 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 import com.photour.databinding.FragmentVisitEditBinding;
 import com.photour.helper.ToastHelper;
-import com.photour.model.Visit;
 
 /**
  * Fragment for edit visit
@@ -68,9 +67,9 @@ public class EditVisitFragment extends Fragment {
     binding.setFragment(this);
 
     if (getArguments() != null) {
-      Visit visit = EditVisitFragmentArgs.fromBundle(getArguments()).getVisit();
-      visitViewModel.visit = visit;
-      binding.setVisit(visit);
+      EditVisitFragmentArgs args = EditVisitFragmentArgs.fromBundle(getArguments());
+      visitViewModel.visitId = args.getVisitId();
+      binding.setVisitTitle(args.getVisitTitle());
     }
 
     return binding.getRoot();
@@ -86,11 +85,18 @@ public class EditVisitFragment extends Fragment {
       return;
     }
 
-    if (visitViewModel.updateVisitTitle(editText.toString())) {
-      Navigation.findNavController(binding.getRoot()).navigateUp();
-    } else {
-      ToastHelper.tShort(activity, "Failed to update visit title");
-    }
+    visitViewModel.updateVisitTitle(editText.toString(), updated -> {
+      // The fragment might have been left while the visit was being updated
+      if (!isAdded()) {
+        return;
+      }
+
+      if (Boolean.TRUE.equals(updated)) {
+        Navigation.findNavController(binding.getRoot()).navigateUp();
+      } else {
+        ToastHelper.tShort(activity, "Failed to update visit title");
+      }
+    });
   }
 
   /**
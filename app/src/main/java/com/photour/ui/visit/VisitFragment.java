@@ -24,17 +24,20 @@ import com.google.android.libraries.maps.OnMapReadyCallback;
 import com.google.android.libraries.maps.SupportMapFragment;
 import com.google.android.libraries.maps.model.BitmapDescriptor;
 import com.google.android.libraries.maps.model.BitmapDescriptorFactory;
+import com.google.android.libraries.maps.model.CameraPosition;
 import com.google.android.libraries.maps.model.JointType;
 import com.google.android.libraries.maps.model.LatLng;
 import com.google.android.libraries.maps.model.LatLngBounds;
 import com.google.android.libraries.maps.model.Marker;
 import com.google.android.libraries.maps.model.MarkerOptions;
+import com.google.android.libraries.maps.model.Polyline;
 import com.google.android.libraries.maps.model.PolylineOptions;
 import com.photour.MainActivity;
 import com.photour.R;
 import com.photour.databinding.FragmentVisitBinding;
 import com.photour.helper.AlertDialogHelper;
 import com.photour.helper.PermissionHelper;
+import com.photour.helper.RouteHelper;
 import com.photour.helper.ToastHelper;
 import com.photour.model.Photo;
 import com.photour.ui.visit.VisitFragmentDirections.ActionEditVisit;
@@ -48,6 +51,9 @@ import java.util.List;
  */
 public class VisitFragment extends Fragment implements OnMapReadyCallback {
 
+  // Padding in pixels between the route and the edges of the map
+  private static final int MAP_PADDING = 5;
+
   private PermissionHelper permissionHelper;
 
   private FragmentVisitBinding binding;
@@ -59,6 +65,9 @@ public class VisitFragment extends Fragment implements OnMapReadyCallback {
   private VisitAdapter visitAdapter;
   private int currentPos = -1;
   private List<Marker> markerList = new ArrayList<>();
+  private GoogleMap routeMap;
+  private Polyline routePolyline;
+  private int routeZoom = -1;
 
   /**
    * Called to do initial creation of a fragment.  This is called after {@link #onAttach(Activity)}
@@ -108,12 +117,19 @@ public class VisitFragment extends Fragment implements OnMapReadyCallback {
     binding.setViewModel(visitViewModel);
 
     if (getArguments() != null) {
-      visitViewModel.initVisit(VisitFragmentArgs.fromBundle(getArguments()).getVisit());
+      visitViewModel.initVisit(VisitFragmentArgs.fromBundle(getArguments()).getVisitId());
     }
 
+    // The route is only loaded here, it is drawn once both the visit and the map are ready
     visitViewModel.liveVisit.observe(getViewLifecycleOwner(), visit -> {
+      // The visit has been deleted
+      if (visit == null) {
+        return;
+      }
+
       visitViewModel.visit = visit;
       ((MainActivity) activity).setToolbarTitle(visit.visitTitle());
+      initialisePolyLine();
     });
 
     return binding.getRoot();
@@ -129,7 +145,7 @@ public class VisitFragment extends Fragment implements OnMapReadyCallback {
    */
   @Override
   public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
-    if (visitViewModel.visit != null) {
+    if (visitViewModel.liveVisit != null) {
       initializeViewPager();
     }
   }
@@ -158,6 +174,21 @@ public class VisitFragment extends Fragment implements OnMapReadyCallback {
     currentPos = mViewPager.getCurrentItem();
   }
 
+  /**
+   * Called when the view previously created by {@link #onCreateView(LayoutInflater, ViewGroup,
+   * Bundle)} has been detached from the fragment. The map is destroyed with the view, so the
+   * references to it and to its markers are released.
+   */
+  @Override
+  public void onDestroyView() {
+    super.onDestroyView();
+    googleMap = null;
+    routeMap = null;
+    routePolyline = null;
+    routeZoom = -1;
+    markerList.clear();
+  }
+
   /**
    * Called to ask the fragment to save its current dynamic state, so it can later be reconstructed
    * in a new instance of its process is restarted.  If a new instance of the fragment later needs
@@ -242,14 +273,25 @@ public class VisitFragment extends Fragment implements OnMapReadyCallback {
     this.googleMap.getUiSettings().setMapToolbarEnabled(false);
 
     initialisePolyLine();
+
+    if (visitViewModel.photos.getValue() != null) {
+      initialiseMarker(visitViewModel.photos.getValue());
+    }
   }
 
   /**
    * Function to initialise polyline to indicate visit path Starts with getting LatLngBounds for the
-   * camera to be able to fit in the entire visit Finally add all LatLng into PolyLine Object to
-   * draw it on the map
+   * camera to be able to fit in the entire visit Finally draw the route simplified for the zoom
+   * level the camera moves to, and simplify it again once the camera is idle. Nothing is drawn
+   * until both the map and the visit have been loaded.
    */
   private void initialisePolyLine() {
+    // The route is drawn once per map, a new map is created every time the view is recreated
+    if (googleMap == null || visitViewModel.visit == null || routeMap == googleMap) {
+      return;
+    }
+
+    routeMap = googleMap;
     List<LatLng> polyLine = visitViewModel.visit.latLngList();
 
     // Edge case: latLngList is null or empty
@@ -263,14 +305,75 @@ public class VisitFragment extends Fragment implements OnMapReadyCallback {
     }
 
     LatLngBounds bounds = builder.build();
-    this.googleMap.animateCamera(CameraUpdateFactory.newLatLngBounds(bounds, 5));
+    drawRoute(polyLine, targetZoom(bounds), bounds.getCenter().latitude);
+
+    // Refine the route for the zoom level the camera actually settled at
+    final GoogleMap map = googleMap;
+    map.setOnCameraIdleListener(() -> {
+      // The view, and the map with it, might have been destroyed since
+      if (map != googleMap) {
+        return;
+      }
+
+      final CameraPosition camera = map.getCameraPosition();
+      drawRoute(polyLine, camera.zoom, camera.target.latitude);
+    });
+    this.googleMap.animateCamera(CameraUpdateFactory.newLatLngBounds(bounds, MAP_PADDING));
+  }
+
+  /**
+   * Get the zoom level the camera moves to when it is fitted to the route
+   *
+   * @param bounds The bounds of the route
+   * @return float The zoom level
+   */
+  private float targetZoom(LatLngBounds bounds) {
+    final Fragment mapFragment = getChildFragmentManager()
+        .findFragmentById(R.id.map_lite_fragment);
+    final View mapView = mapFragment != null ? mapFragment.getView() : null;
+
+    // Before the map is laid out, the route is drawn at the highest zoom level
+    if (mapView == null) {
+      return RouteHelper.zoomToFit(bounds, 0, 0);
+    }
+
+    final float density = getResources().getDisplayMetrics().density;
+
+    return RouteHelper.zoomToFit(bounds, (mapView.getWidth() - 2 * MAP_PADDING) / density,
+        (mapView.getHeight() - 2 * MAP_PADDING) / density);
+  }
+
+  /**
+   * Draw the route simplified to the pixel size of a zoom level, points closer than a pixel to the
+   * line between their neighbours cannot be seen. The route is only simplified again when the zoom
+   * level changes.
+   *
+   * @param route The route of the visit
+   * @param cameraZoom The zoom level of the camera
+   * @param latitude The latitude of the centre of the camera
+   */
+  private void drawRoute(List<LatLng> route, float cameraZoom, double latitude) {
+    final int zoom = (int) cameraZoom;
+
+    if (zoom == routeZoom) {
+      return;
+    }
+
+    routeZoom = zoom;
+    final List<LatLng> points = RouteHelper
+        .simplify(route, RouteHelper.toleranceAtZoom(zoom, latitude));
+
+    if (routePolyline != null) {
+      routePolyline.setPoints(points);
+      return;
+    }
 
     PolylineOptions options = new PolylineOptions()
         .width(5)
         .color(Color.rgb(190, 41, 236))
         .jointType(JointType.BEVEL)
-        .addAll(polyLine);
-    this.googleMap.addPolyline(options);
+        .addAll(points);
+    routePolyline = this.googleMap.addPolyline(options);
   }
 
   /**
@@ -281,6 +384,16 @@ public class VisitFragment extends Fragment implements OnMapReadyCallback {
    */
 
   private void initialiseMarker(List<Photo> photos) {
+    // The markers are added once the map is ready
+    if (googleMap == null) {
+      return;
+    }
+
+    for (Marker marker : markerList) {
+      marker.remove();
+    }
+    markerList.clear();
+
     for (Photo photo : photos) {
       Marker marker = this.googleMap.addMarker(new MarkerOptions().position(photo.latLng()));
       marker.setTag(photo.id());
@@ -357,7 +470,9 @@ public class VisitFragment extends Fragment implements OnMapReadyCallback {
    * Navigate to {@link EditVisitFragment}
    */
   private void editVisit() {
-    ActionEditVisit actionEditVisit = VisitFragmentDirections.actionEditVisit(visitViewModel.visit);
+    ActionEditVisit actionEditVisit = VisitFragmentDirections.actionEditVisit(
+        visitViewModel.visitId,
+        visitViewModel.visit == null ? "" : visitViewModel.visit.visitTitle());
     Navigation.findNavController(binding.getRoot()).navigate(actionEditVisit);
   }
 
@@ -366,14 +481,20 @@ public class VisitFragment extends Fragment implements OnMapReadyCallback {
    * com.photour.ui.visits.VisitsFragment}
    */
   private void deleteVisit() {
-    AlertDialogHelper.createDeleteConfirmationDialog(activity, () -> {
-      if (visitViewModel.deleteVisit()) {
-        Navigation.findNavController(binding.getRoot()).navigateUp();
-        ToastHelper.tShort(activity, "Visit deleted");
-      } else {
-        ToastHelper.tShort(activity, "Failed to delete");
-      }
-    });
+    AlertDialogHelper.createDeleteConfirmationDialog(activity, () ->
+        visitViewModel.deleteVisit(deleted -> {
+          // The fragment might have been left while the visit was being deleted
+          if (!isAdded()) {
+            return;
+          }
+
+          if (Boolean.TRUE.equals(deleted)) {
+            Navigation.findNavController(binding.getRoot()).navigateUp();
+            ToastHelper.tShort(activity, "Visit deleted");
+          } else {
+            ToastHelper.tShort(activity, "Failed to delete");
+          }
+        }));
   }
 
   /**
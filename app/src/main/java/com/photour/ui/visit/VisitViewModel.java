@@ -7,6 +7,8 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import com.photour.database.PhotoRepository;
 import com.photour.database.VisitRepository;
+import com.photour.helper.FutureHelper;
+import com.photour.helper.FutureHelper.ResultListener;
 import com.photour.helper.PreferenceHelper;
 import com.photour.model.Photo;
 import com.photour.model.Visit;
@@ -22,6 +24,7 @@ public class VisitViewModel extends AndroidViewModel {
   private MutableLiveData<String> placeholderText = new MutableLiveData<>();
   private MutableLiveData<String[]> detailsArray = new MutableLiveData<>();
 
+  int visitId;
   public Visit visit;
   LiveData<Visit> liveVisit;
 
@@ -41,13 +44,14 @@ public class VisitViewModel extends AndroidViewModel {
   }
 
   /**
-   * Set the value of non-LiveData visit and liveData visit
+   * Start loading the visit, including its route, and its photos
    *
-   * @param visit The visit that is passed from {@link com.photour.ui.visits.VisitsFragment}
+   * @param visitId The ID of the visit that is passed from {@link
+   * com.photour.ui.visits.VisitsFragment}
    */
-  void initVisit(Visit visit) {
-    this.visit = visit;
-    liveVisit = visitRepository.getLiveVisit(visit.id());
+  void initVisit(int visitId) {
+    this.visitId = visitId;
+    liveVisit = visitRepository.getLiveVisit(visitId);
 
     loadImages();
   }
@@ -101,20 +105,22 @@ public class VisitViewModel extends AndroidViewModel {
    * Update the title of the visit in {@link EditVisitFragment}
    *
    * @param visitTitle The new visit for the visit
-   * @return boolean {@code true} if the operation is successful, {@code false} otherwise
+   * @param listener Receives {@code true} if the operation is successful, {@code false} otherwise
    */
-  boolean updateVisitTitle(String visitTitle) {
-    return visitRepository.update(visit.id(), visitTitle.isEmpty() ? "Untitled visit" : visitTitle);
+  void updateVisitTitle(String visitTitle, ResultListener<Boolean> listener) {
+    FutureHelper.addCallback(
+        visitRepository.update(visitId, visitTitle.isEmpty() ? "Untitled visit" : visitTitle),
+        getApplication(), listener);
   }
 
   /**
    * Delete a visit
    *
-   * @return boolean {@code true} if the visit has been deleted successfully, otherwise {@code
-   * false}
+   * @param listener Receives {@code true} if the visit has been deleted successfully, otherwise
+   * {@code false}
    */
-  boolean deleteVisit() {
-    return visitRepository.delete(visit);
+  void deleteVisit(ResultListener<Boolean> listener) {
+    FutureHelper.addCallback(visitRepository.delete(visitId), getApplication(), listener);
   }
 
   /**
@@ -140,7 +146,7 @@ public class VisitViewModel extends AndroidViewModel {
    * Helper function to setup photos LiveData with the Room
    */
   private void loadImages() {
-    photos = photoRepository.getAllPhotosInVisit(visit.id());
+    photos = photoRepository.getAllPhotosInVisit(visitId);
   }
 
 }
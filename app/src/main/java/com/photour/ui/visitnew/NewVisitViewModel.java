@@ -8,9 +8,12 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import com.photour.database.PhotoRepository;
 import com.photour.database.VisitRepository;
+import com.photour.helper.FutureHelper;
+import com.photour.helper.FutureHelper.ResultListener;
 import com.photour.model.Photo;
 import com.photour.model.Visit;
 import java.util.Date;
+import java.util.List;
 
 /**
  * A ViewModel for {@link NewVisitFragment} and {@link StartVisitFragment}
@@ -40,13 +43,23 @@ public class NewVisitViewModel extends AndroidViewModel {
   }
 
   /**
-   * Insert the current new visit into the database
+   * Insert the current new visit into the database. The row ID is delivered on the main thread once
+   * the visit has been inserted, or immediately if it already has been.
+   *
+   * @param listener The listener to receive the row ID of the visit, 0 if the insertion has failed
    */
-  public void insertVisit() {
-    if (visitRowId == 0) {
-      visitRowId = visitRepository
-          .insert(Visit.create(0, newVisitTitle.getValue(), new Date(), 0, null, 0, ""));
+  public void insertVisit(ResultListener<Long> listener) {
+    if (visitRowId != 0) {
+      listener.onResult(visitRowId);
+      return;
     }
+
+    FutureHelper.addCallback(visitRepository
+            .insert(Visit.create(0, newVisitTitle.getValue(), new Date(), 0, null, 0, "")),
+        getApplication(), rowId -> {
+          visitRowId = rowId == null ? 0 : rowId;
+          listener.onResult(visitRowId);
+        });
   }
 
   /**
@@ -55,7 +68,10 @@ public class NewVisitViewModel extends AndroidViewModel {
    * @param startVisitMap A {@link StartVisitMap} instance
    */
   void endVisit(StartVisitMap startVisitMap) {
-    if (visitRowId != 0 && !startVisitMap.latLngList.isEmpty()) {
+    photoRepository.flush();
+
+    // The visit is ended even without a route, so that it is no longer treated as ongoing
+    if (visitRowId != 0) {
       visitRepository
           .update(visitRowId, SystemClock.elapsedRealtime() - baseTime, startVisitMap.latLngList);
     }
@@ -72,6 +88,27 @@ public class NewVisitViewModel extends AndroidViewModel {
     }
   }
 
+  /**
+   * Insert photos of current new visit into the database in a single transaction, such as the
+   * photos imported from the gallery
+   *
+   * @param photos The {@link Photo} objects
+   */
+  void insertPhotos(List<Photo> photos) {
+    if (visitRowId != 0) {
+      photoRepository.insertAll(photos);
+    }
+  }
+
+  /**
+   * Insert the photos that are still batched before the ViewModel is destroyed
+   */
+  @Override
+  protected void onCleared() {
+    photoRepository.flush();
+    super.onCleared();
+  }
+
   /**
    * Get the row ID of the current visit
    *
@@ -24,6 +24,7 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 import com.esafirm.imagepicker.features.ImagePicker;
+import com.esafirm.imagepicker.model.Image;
 import com.google.android.libraries.maps.GoogleMap;
 import com.google.android.libraries.maps.OnMapReadyCallback;
 import com.google.android.libraries.maps.SupportMapFragment;
@@ -40,7 +41,9 @@ import com.photour.sensor.Accelerometer;
 import com.photour.sensor.AmbientSensor;
 import com.photour.sensor.Barometer;
 import com.photour.service.StartVisitService;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Fragment to create when new visit has started
@@ -333,12 +336,25 @@ public class StartVisitFragment extends Fragment implements OnMapReadyCallback {
   @Override
   public void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
 
-    // Add marker and insert photo into the database
+    // Add markers and insert the photos into the database
     if (ImagePicker.shouldHandle(requestCode, resultCode, data)) {
-      String pathName = ImagePicker.getFirstImageOrNull(data).getPath();
+      final List<Photo> photos = new ArrayList<>();
 
-      startVisitMap.addMarkerToCurrentLocation(mService, pathName);
-      insertPhoto(pathName);
+      for (Image image : ImagePicker.getImages(data)) {
+        startVisitMap.addMarkerToCurrentLocation(mService, image.getPath());
+
+        final Photo photo = createPhoto(image.getPath());
+        if (photo != null) {
+          photos.add(photo);
+        }
+      }
+
+      // A single photo, such as one taken with the camera, joins the current batch
+      if (photos.size() == 1) {
+        viewModel.insertPhoto(photos.get(0));
+      } else {
+        viewModel.insertPhotos(photos);
+      }
     }
 
     super.onActivityResult(requestCode, resultCode, data);
@@ -346,32 +362,27 @@ public class StartVisitFragment extends Fragment implements OnMapReadyCallback {
 
 
   /**
-   * Insert the uploaded or taken photo into the database
+   * Create the uploaded or taken photo at the current location
    *
    * @param pathName The file path of the photo
+   * @return Photo The photo, or null if the current location is unknown
    */
-  private void insertPhoto(String pathName) {
+  private Photo createPhoto(String pathName) {
     Location location = startVisitMap.currentLocation.getValue();
     if (location == null) {
-      return;
+      return null;
     }
 
     LatLng point = new LatLng(location.getLatitude(), location.getLongitude());
 
-    Photo photo;
-
-    // Check if sensors reading are available
-    if (ambientSensor.standardSensorAvailable() || barometer.standardSensorAvailable()) {
-      Float temperature = ambientSensor.getSensorValue().getValue();
-      Float pressure = barometer.getSensorValue().getValue();
+    // A reading is null if its sensor is not available
+    Float temperature = ambientSensor.standardSensorAvailable()
+        ? ambientSensor.getSensorValue().getValue() : null;
+    Float pressure = barometer.standardSensorAvailable()
+        ? barometer.getSensorValue().getValue() : null;
 
-      photo = Photo.create(0, (int) viewModel.getVisitRowId(), pathName, new Date(), point,
-          new float[]{temperature == null ? 0 : temperature, pressure == null ? 0 : pressure});
-    } else {
-      photo = Photo.create(0, (int) viewModel.getVisitRowId(), pathName, new Date(), point, null);
-    }
-
-    viewModel.insertPhoto(photo);
+    return Photo.create(0, (int) viewModel.getVisitRowId(), pathName, new Date(),
+        point.latitude, point.longitude, temperature, pressure);
   }
 
   /**
@@ -452,6 +463,10 @@ public class StartVisitFragment extends Fragment implements OnMapReadyCallback {
    */
   public void onStopClick() {
     AlertDialogHelper.createExitConfirmationDialog(activity, () -> {
+      if (mService != null) {
+        mService.finishRoute();
+      }
+
       activity.stopService(new Intent(activity, StartVisitService.class));
       viewModel.endVisit(startVisitMap);
       Navigation.findNavController(binding.getRoot()).navigate(R.id.action_stop_visit);
@@ -466,13 +481,13 @@ public class StartVisitFragment extends Fragment implements OnMapReadyCallback {
   }
 
   /**
-   * Open gallery to choose image
+   * Open gallery to choose images
    */
   public void onGalleryClick() {
     ImagePicker.create(this)
         .folderMode(true)
         .toolbarFolderTitle("Add photos to new visit")
-        .single().showCamera(false)
+        .multi().showCamera(false)
         .start();
   }
 }
@@ -1,11 +1,11 @@
 package com.photour.ui.visitnew;
 
 import android.app.Activity;
+import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.location.Location;
 import android.view.View;
 import android.widget.ImageView;
-import androidx.exifinterface.media.ExifInterface;
 import androidx.lifecycle.MutableLiveData;
 import com.google.android.libraries.maps.CameraUpdateFactory;
 import com.google.android.libraries.maps.GoogleMap;
@@ -16,12 +16,14 @@ import com.google.android.libraries.maps.model.JointType;
 import com.google.android.libraries.maps.model.LatLng;
 import com.google.android.libraries.maps.model.Marker;
 import com.google.android.libraries.maps.model.MarkerOptions;
+import com.google.android.libraries.maps.model.Polyline;
 import com.google.android.libraries.maps.model.PolylineOptions;
 import com.photour.R;
 import com.photour.helper.BitmapHelper;
 import com.photour.helper.LocationHelper;
 import com.photour.service.StartVisitService;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A class for handling and interacting with the map object in {@link StartVisitFragment}
@@ -36,11 +38,20 @@ public class StartVisitMap implements OnMapReadyCallback, OnMarkerClickListener
 
   private static final int ZOOM_LEVEL = 17;
 
+  // Points per polyline segment, so that a new point only updates a bounded number of points
+  private static final int MAX_SEGMENT_POINTS = 100;
+
   // To check if this created the first time in current activity
   private boolean isFirstTime = true;
 
   ArrayList<LatLng> latLngList = new ArrayList<>();
 
+  // The route is drawn as a chain of polylines, new points are only added to the last one
+  private final List<Polyline> segments = new ArrayList<>();
+  private final List<LatLng> segmentPoints = new ArrayList<>();
+  private Polyline currentSegment;
+  private int drawnPoints = 0;
+
   ArrayList<ImageMarker> markerList = new ArrayList<>();
 
   private String clickedMarkerImagePath;
@@ -63,6 +74,7 @@ public class StartVisitMap implements OnMapReadyCallback, OnMarkerClickListener
     this.googleMap.setOnMarkerClickListener(this);
 
     // Restore polyline and markers if fragment is re-created
+    resetPolyline();
     drawPolyline();
     drawMarkers();
 
@@ -122,6 +134,11 @@ public class StartVisitMap implements OnMapReadyCallback, OnMarkerClickListener
    */
   void setLatLngList(ArrayList<LatLng> latLngList) {
     this.latLngList = latLngList;
+
+    if (googleMap != null) {
+      resetPolyline();
+      drawPolyline();
+    }
   }
 
   /**
@@ -158,15 +175,63 @@ public class StartVisitMap implements OnMapReadyCallback, OnMarkerClickListener
   }
 
   /**
-   * Draw polyline on the map to represent the visit route
+   * Draw polyline on the map to represent the visit route. Only the points added since the last
+   * call are drawn, by extending the last segment of the route. A full segment is left as it is
+   * and a new one is started from its last point, so the cost of a location update does not grow
+   * with the length of the visit.
    */
   private void drawPolyline() {
+    // Points restored from the service may have been added before the map was ready
+    for (int i = drawnPoints; i < latLngList.size(); i++) {
+      if (segmentPoints.size() >= MAX_SEGMENT_POINTS) {
+        drawSegment();
+
+        // Start the next segment where this one ends, so that the route has no gaps
+        final LatLng joint = segmentPoints.get(segmentPoints.size() - 1);
+        segmentPoints.clear();
+        segmentPoints.add(joint);
+        currentSegment = null;
+      }
+
+      segmentPoints.add(latLngList.get(i));
+    }
+
+    if (drawnPoints != latLngList.size()) {
+      drawnPoints = latLngList.size();
+      drawSegment();
+    }
+  }
+
+  /**
+   * Draw the points of the current segment, adding its polyline to the map if it is new
+   */
+  private void drawSegment() {
+    if (currentSegment != null) {
+      currentSegment.setPoints(segmentPoints);
+      return;
+    }
+
     PolylineOptions polylineOptions = new PolylineOptions()
         .width(5)
         .color(Color.rgb(190, 41, 236))
         .jointType(JointType.BEVEL)
-        .addAll(latLngList);
-    googleMap.addPolyline(polylineOptions);
+        .addAll(segmentPoints);
+    currentSegment = googleMap.addPolyline(polylineOptions);
+    segments.add(currentSegment);
+  }
+
+  /**
+   * Remove the drawn route, so that it is drawn again from the first point
+   */
+  private void resetPolyline() {
+    for (Polyline segment : segments) {
+      segment.remove();
+    }
+
+    segments.clear();
+    segmentPoints.clear();
+    currentSegment = null;
+    drawnPoints = 0;
   }
 
   /**
@@ -218,14 +283,11 @@ public class StartVisitMap implements OnMapReadyCallback, OnMarkerClickListener
       final ImageView imageView = view.findViewById(R.id.info_image);
 
       // Async task won't work because the view is returned before the task is completed
-      try {
-        ExifInterface exifInterface = new ExifInterface(clickedMarkerImagePath);
-        imageView.setImageBitmap(
-            exifInterface.hasThumbnail()
-                ? exifInterface.getThumbnailBitmap()
-                : BitmapHelper.decodeSampledBitmapFromResource(clickedMarkerImagePath, 100, 100)
-        );
-      } catch (Exception e) {
+      final Bitmap thumbnail = BitmapHelper.decodeThumbnail(clickedMarkerImagePath, 100);
+
+      if (thumbnail != null) {
+        imageView.setImageBitmap(thumbnail);
+      } else {
         imageView.setImageResource(R.drawable.placeholder);
       }
 
@@ -6,7 +6,7 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.photour.databinding.ItemVisitBinding;
 import com.photour.helper.FileHelper;
-import com.photour.model.Visit;
+import com.photour.model.VisitSummary;
 import com.photour.ui.visits.VisitsAdapter.VisitCard;
 import java.util.ArrayList;
 import java.util.List;
@@ -18,14 +18,14 @@ import java.util.List;
  */
 public class VisitsAdapter extends RecyclerView.Adapter<VisitCard> {
 
-  private static List<Visit> items = new ArrayList<>();
+  private static List<VisitSummary> items = new ArrayList<>();
 
   /**
    * Setter for items
    *
    * @param items List of Uri for the adapter
    */
-  void setItems(List<Visit> items) {
+  void setItems(List<VisitSummary> items) {
     VisitsAdapter.items = items;
   }
 
@@ -59,7 +59,7 @@ public class VisitsAdapter extends RecyclerView.Adapter<VisitCard> {
    */
   @Override
   public void onBindViewHolder(@NonNull VisitCard holder, int position) {
-    Visit visit = items.get(position);
+    VisitSummary visit = items.get(position);
     holder.itemVisitBinding.setVisit(visit);
     holder.itemVisitBinding.setValidPath(FileHelper.fileExist(visit.file_path));
     holder.itemVisitBinding.executePendingBindings();
@@ -18,7 +18,7 @@ import com.google.common.collect.Lists;
 import com.photour.R;
 import com.photour.databinding.FragmentVisitsBinding;
 import com.photour.helper.PermissionHelper;
-import com.photour.model.Visit;
+import com.photour.model.VisitSummary;
 import java.util.List;
 
 /**
@@ -119,9 +119,9 @@ public class VisitsFragment extends Fragment {
   /**
    * Helper function to reset recyclerView when data set changes
    *
-   * @param visits List of Visit
+   * @param visits List of VisitSummary
    */
-  private void resetRecycler(List<Visit> visits) {
+  private void resetRecycler(List<VisitSummary> visits) {
 
     if (visits == null || visits.isEmpty()) {
       visitsViewModel.setPlaceholderText(false);
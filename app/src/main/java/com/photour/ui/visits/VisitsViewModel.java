@@ -7,7 +7,7 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import com.photour.R;
 import com.photour.database.VisitRepository;
-import com.photour.model.Visit;
+import com.photour.model.VisitSummary;
 import java.util.List;
 
 /**
@@ -20,7 +20,7 @@ public class VisitsViewModel extends AndroidViewModel {
   private MutableLiveData<String> placeholderText = new MutableLiveData<>();
 
   private VisitRepository visitRepository;
-  public LiveData<List<Visit>> visits;
+  public LiveData<List<VisitSummary>> visits;
 
   /**
    * Constructor for VisitsViewModel
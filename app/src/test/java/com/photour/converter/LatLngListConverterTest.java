@@ -0,0 +1,176 @@
+package com.photour.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.android.libraries.maps.model.LatLng;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LatLngListConverter}
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class LatLngListConverterTest {
+
+  // Coordinates are stored in units of 1e-7 degrees, rounded to the nearest unit
+  private static final double DELTA = 0.5e-7;
+  private static final int ROUTE_SIZE = 10000;
+
+  @Test
+  public void emptyRouteIsNull() {
+    assertNull(LatLngListConverter.fromArrayList(null));
+    assertNull(LatLngListConverter.fromArrayList(new ArrayList<>()));
+    assertNull(LatLngListConverter.toArrayList(null));
+    assertNull(LatLngListConverter.toArrayList(new byte[0]));
+  }
+
+  @Test
+  public void roundTripSinglePoint() {
+    assertRoundTrip(route(new LatLng(53.3811, -1.4701)));
+  }
+
+  @Test
+  public void roundTripNegativeCoordinates() {
+    assertRoundTrip(route(
+        new LatLng(-33.8568, 151.2153),
+        new LatLng(-33.8570, 151.2149),
+        new LatLng(-54.8019, -68.3030),
+        new LatLng(-90, -179.9999999)
+    ));
+  }
+
+  @Test
+  public void roundTripAcrossAntimeridian() {
+    // The longitude delta overflows an int here, which wraps back when decoded
+    assertRoundTrip(route(
+        new LatLng(-16.7, 179.9999999),
+        new LatLng(-16.7, -179.9999999),
+        new LatLng(-16.8, 179.9),
+        new LatLng(90, 0)
+    ));
+  }
+
+  @Test
+  public void roundTripLongRoute() {
+    assertRoundTrip(randomRoute(new Random(4510)));
+  }
+
+  @Test
+  public void legacyString() {
+    final ArrayList<LatLng> route = LatLngListConverter
+        .fromLegacyString("[53.3811,-1.4701];[-33.8568,151.2153]");
+
+    assertEquals(2, route.size());
+    assertEquals(53.3811, route.get(0).latitude, 0);
+    assertEquals(-1.4701, route.get(0).longitude, 0);
+    assertEquals(-33.8568, route.get(1).latitude, 0);
+    assertEquals(151.2153, route.get(1).longitude, 0);
+
+    assertNull(LatLngListConverter.fromLegacyString(null));
+    assertNull(LatLngListConverter.fromLegacyString(""));
+  }
+
+  @Test
+  public void legacyStringMigratesToBlob() {
+    final ArrayList<LatLng> route = randomRoute(new Random(4510));
+    final ArrayList<LatLng> migrated = LatLngListConverter
+        .fromLegacyString(toLegacyString(route));
+
+    assertRoundTrip(migrated);
+  }
+
+  /**
+   * Not a strict benchmark, the sizes and timings are printed for comparison. Only the size of
+   * the BLOB is checked against the string.
+   */
+  @Test
+  public void compareWithLegacyString() {
+    final ArrayList<LatLng> route = randomRoute(new Random(4510));
+    final int passes = 20;
+
+    final byte[] blob = LatLngListConverter.fromArrayList(route);
+    final String string = toLegacyString(route);
+    final int stringSize = string.getBytes(StandardCharsets.UTF_8).length;
+
+    // Warm up both converters before they are timed
+    LatLngListConverter.toArrayList(LatLngListConverter.fromArrayList(route));
+    LatLngListConverter.fromLegacyString(toLegacyString(route));
+
+    long start = System.nanoTime();
+    for (int pass = 0; pass < passes; pass++) {
+      LatLngListConverter.toArrayList(LatLngListConverter.fromArrayList(route));
+    }
+    final long blobNanos = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (int pass = 0; pass < passes; pass++) {
+      LatLngListConverter.fromLegacyString(toLegacyString(route));
+    }
+    final long stringNanos = System.nanoTime() - start;
+
+    System.out.printf("%d points: BLOB %d bytes, %.2f ms per round trip; "
+            + "string %d bytes, %.2f ms per round trip%n", ROUTE_SIZE,
+        blob.length, blobNanos / 1e6 / passes, stringSize, stringNanos / 1e6 / passes);
+
+    assertTrue(blob.length < stringSize);
+  }
+
+  private static void assertRoundTrip(List<LatLng> route) {
+    final List<LatLng> decoded = LatLngListConverter
+        .toArrayList(LatLngListConverter.fromArrayList(new ArrayList<>(route)));
+
+    assertEquals(route.size(), decoded.size());
+    for (int i = 0; i < route.size(); i++) {
+      assertEquals(route.get(i).latitude, decoded.get(i).latitude, DELTA);
+      assertEquals(route.get(i).longitude, decoded.get(i).longitude, DELTA);
+    }
+  }
+
+  private static ArrayList<LatLng> route(LatLng... latLngs) {
+    return new ArrayList<>(Arrays.asList(latLngs));
+  }
+
+  /**
+   * A walk of location updates a few metres apart, as recorded during a visit
+   *
+   * @param random The source of the steps
+   * @return ArrayList<LatLng> The route
+   */
+  private static ArrayList<LatLng> randomRoute(Random random) {
+    final ArrayList<LatLng> route = new ArrayList<>(ROUTE_SIZE);
+    double lat = 53.3811;
+    double lng = -1.4701;
+
+    for (int i = 0; i < ROUTE_SIZE; i++) {
+      lat += (random.nextDouble() - 0.5) * 1e-4;
+      lng += (random.nextDouble() - 0.5) * 1e-4;
+      route.add(new LatLng(lat, lng));
+    }
+    return route;
+  }
+
+  /**
+   * The string format used before version 3 of the database ([latitude,longitude];[...])
+   *
+   * @param route The route
+   * @return String The semicolon separated string
+   */
+  private static String toLegacyString(List<LatLng> route) {
+    final StringBuilder string = new StringBuilder();
+
+    for (LatLng latLng : route) {
+      string.append("[").append(latLng.latitude).append(",");
+      string.append(latLng.longitude).append("]").append(";");
+    }
+
+    string.setLength(string.length() - 1);
+    return string.toString();
+  }
+}
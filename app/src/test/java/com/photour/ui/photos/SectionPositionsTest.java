@@ -0,0 +1,179 @@
+package com.photour.ui.photos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.photour.ui.photos.SectionedGridRecyclerViewAdapter.Section;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests for the mapping between adapter positions and photo positions in {@link SectionPositions}
+ *
+ * @author Zer Jun Eng, Jia Hua Ng
+ */
+public class SectionPositionsTest {
+
+  private static final int SECTION_COUNT = 5000;
+  private static final int MAX_SECTION_SIZE = 20;
+
+  @Test
+  public void emptyHasNoTitles() {
+    assertFalse(SectionPositions.EMPTY.isSectionHeader(0));
+    assertEquals(5, SectionPositions.EMPTY.toPosition(5));
+  }
+
+  @Test
+  public void assignSortsSectionsAndOffsetsTitles() {
+    final Section[] sections = {
+        new Section(5, 2, "b"),
+        new Section(0, 1, "a"),
+        new Section(7, 3, "c"),
+    };
+
+    SectionPositions.assign(sections);
+
+    assertEquals(1, sections[0].key);
+    assertEquals(0, sections[0].sectionedPosition);
+    assertEquals(6, sections[1].sectionedPosition);
+    assertEquals(9, sections[2].sectionedPosition);
+  }
+
+  @Test
+  public void mapsSmallGrid() {
+    // Photos 0-1 in the first section, photo 2 in the second, photos 3-5 in the third
+    final SectionPositions positions = index(new int[]{2, 1, 3});
+    final int[] expected = {
+        SectionPositions.NO_POSITION, 0, 1,
+        SectionPositions.NO_POSITION, 2,
+        SectionPositions.NO_POSITION, 3, 4, 5
+    };
+
+    for (int position = 0; position < expected.length; position++) {
+      assertEquals(expected[position] == SectionPositions.NO_POSITION,
+          positions.isSectionHeader(position));
+      assertEquals(expected[position], positions.toPosition(position));
+    }
+    assertEquals(1, positions.sectionIndexOf(3));
+    assertTrue(positions.sectionIndexOf(4) < 0);
+  }
+
+  @Test
+  public void mapsLargeGridLikeLinearScan() {
+    final int[] sizes = randomSizes(new Random(4510));
+    final SectionPositions positions = index(sizes);
+    final int itemCount = itemCount(sizes);
+
+    for (int position = 0; position < itemCount; position++) {
+      final int expected = linearToPosition(sizes, position);
+
+      assertEquals(expected == SectionPositions.NO_POSITION, positions.isSectionHeader(position));
+      assertEquals(expected, positions.toPosition(position));
+    }
+  }
+
+  /**
+   * Not a strict benchmark, the timings are printed for comparison and only the results are
+   * checked. Each pass maps every position of a grid with 5,000 sections.
+   */
+  @Test
+  public void benchmarkAgainstLinearScan() {
+    final int[] sizes = randomSizes(new Random(4510));
+    final SectionPositions positions = index(sizes);
+    final int itemCount = itemCount(sizes);
+    final int passes = 20;
+
+    long binarySum = 0;
+    long linearSum = 0;
+
+    // Warm up both lookups before they are timed
+    for (int position = 0; position < itemCount; position++) {
+      binarySum += positions.toPosition(position);
+      linearSum += linearToPosition(sizes, position);
+    }
+
+    long start = System.nanoTime();
+    for (int pass = 0; pass < passes; pass++) {
+      for (int position = 0; position < itemCount; position++) {
+        binarySum += positions.toPosition(position);
+      }
+    }
+    final long binaryNanos = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (int pass = 0; pass < passes; pass++) {
+      for (int position = 0; position < itemCount; position++) {
+        linearSum += linearToPosition(sizes, position);
+      }
+    }
+    final long linearNanos = System.nanoTime() - start;
+
+    final long lookups = (long) passes * itemCount;
+    System.out.printf("%d sections, %d items: binary search %.1f ns/lookup, "
+            + "linear scan %.1f ns/lookup%n", SECTION_COUNT, itemCount,
+        (double) binaryNanos / lookups, (double) linearNanos / lookups);
+
+    assertEquals(linearSum, binarySum);
+  }
+
+  /**
+   * Build the index of a grid
+   *
+   * @param sizes Number of photos in each section
+   * @return SectionPositions The index of the grid
+   */
+  private static SectionPositions index(int[] sizes) {
+    final Section[] sections = new Section[sizes.length];
+    int firstPosition = 0;
+
+    for (int i = 0; i < sizes.length; i++) {
+      sections[i] = new Section(firstPosition, i, null);
+      firstPosition += sizes[i];
+    }
+
+    SectionPositions.assign(sections);
+    return new SectionPositions(sections);
+  }
+
+  /**
+   * Reference mapping that walks the sections one by one
+   *
+   * @param sizes Number of photos in each section
+   * @param sectionedPosition position in the adapter
+   * @return int Position of the photo, or {@link SectionPositions#NO_POSITION} for a title
+   */
+  private static int linearToPosition(int[] sizes, int sectionedPosition) {
+    int titlePosition = 0;
+
+    for (int i = 0; i < sizes.length; i++) {
+      if (sectionedPosition == titlePosition) {
+        return SectionPositions.NO_POSITION;
+      }
+      if (sectionedPosition < titlePosition + 1 + sizes[i]) {
+        return sectionedPosition - (i + 1);
+      }
+      titlePosition += 1 + sizes[i];
+    }
+
+    return sectionedPosition - sizes.length;
+  }
+
+  private static int[] randomSizes(Random random) {
+    final int[] sizes = new int[SECTION_COUNT];
+
+    for (int i = 0; i < sizes.length; i++) {
+      sizes[i] = 1 + random.nextInt(MAX_SECTION_SIZE);
+    }
+    return sizes;
+  }
+
+  private static int itemCount(int[] sizes) {
+    int count = sizes.length;
+
+    for (int size : sizes) {
+      count += size;
+    }
+    return count;
+  }
+}